@@ -2,10 +2,21 @@ package org.dbms.dbmshealthcare;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// reactive clients are created per role in ReactiveMongoConfig, never by auto-configuration
+@SpringBootApplication(exclude = {MongoReactiveAutoConfiguration.class,
+    MongoReactiveDataAutoConfiguration.class, MongoReactiveRepositoriesAutoConfiguration.class})
+@ConfigurationPropertiesScan
 @EnableMongoAuditing
+@EnableScheduling
+@EnableAsync
 public class DbmsHealthcareApplication {
 
   public static void main(String[] args) {
@@ -0,0 +1,105 @@
+package org.dbms.dbmshealthcare.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
+import org.dbms.dbmshealthcare.constants.Role;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded cache of analytics results keyed by endpoint, month (for the monthly endpoints) and
+ * the caller's database role, so a result computed with admin privileges is never served to a
+ * role that could not have computed it. Entries expire after a per-endpoint TTL and are evicted
+ * early by repositories whose writes change the underlying data; an eviction requested inside a
+ * transaction waits for the commit, so a result read in between cannot put stale data back.
+ */
+@Component
+public class AnalyticsCache {
+
+  public enum Endpoint {
+    TOP_DOCTORS,
+    SPECIALTY_STATS,
+    AGE_DISTRIBUTION,
+    DOCTOR_COUNT_BY_SPECIALTY,
+    USER_ROLE_DISTRIBUTION
+  }
+
+  private final Cache<Key, List<?>> cache;
+  private final MongoTemplateResolver mongoTemplateResolver;
+
+  public AnalyticsCache(AnalyticsCacheProperties properties,
+      MongoTemplateResolver mongoTemplateResolver, MeterRegistry meterRegistry) {
+    this.mongoTemplateResolver = mongoTemplateResolver;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(properties.maxSize())
+        .expireAfter(new Expiry<Key, List<?>>() {
+          @Override
+          public long expireAfterCreate(Key key, List<?> value, long currentTime) {
+            return properties.ttl(key.endpoint()).toNanos();
+          }
+
+          @Override
+          public long expireAfterUpdate(Key key, List<?> value, long currentTime,
+              long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+          }
+
+          @Override
+          public long expireAfterRead(Key key, List<?> value, long currentTime,
+              long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .recordStats()
+        .build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "analytics");
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T> List<T> get(Endpoint endpoint, YearMonth month, Supplier<List<T>> loader) {
+    Key key = new Key(endpoint, month, mongoTemplateResolver.resolveRole());
+    return (List<T>) cache.get(key, k -> loader.get());
+  }
+
+  public <T> List<T> get(Endpoint endpoint, Supplier<List<T>> loader) {
+    return get(endpoint, null, loader);
+  }
+
+  public void invalidate(Endpoint... endpoints) {
+    List<Endpoint> affected = List.of(endpoints);
+    afterCommit(() -> cache.asMap().keySet().removeIf(key -> affected.contains(key.endpoint())));
+  }
+
+  public void invalidate(Endpoint endpoint, YearMonth month) {
+    afterCommit(() -> cache.asMap().keySet().removeIf(
+        key -> key.endpoint() == endpoint && Objects.equals(key.month(), month)));
+  }
+
+  private void afterCommit(Runnable eviction) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      eviction.run();
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        eviction.run();
+      }
+    });
+  }
+
+  private record Key(Endpoint endpoint, YearMonth month, Role role) {
+
+  }
+}
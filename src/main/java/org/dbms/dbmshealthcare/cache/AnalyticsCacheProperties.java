@@ -0,0 +1,23 @@
+package org.dbms.dbmshealthcare.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import org.dbms.dbmshealthcare.cache.AnalyticsCache.Endpoint;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param maxSize maximum number of cached results across all endpoints
+ * @param ttl     default time a result may be served before it is recomputed
+ * @param ttls    per-endpoint overrides of {@code ttl}
+ */
+@ConfigurationProperties(prefix = "analytics.cache")
+public record AnalyticsCacheProperties(
+    @DefaultValue("500") long maxSize,
+    @DefaultValue("PT1M") Duration ttl,
+    Map<Endpoint, Duration> ttls) {
+
+  public Duration ttl(Endpoint endpoint) {
+    return ttls != null && ttls.containsKey(endpoint) ? ttls.get(endpoint) : ttl;
+  }
+}
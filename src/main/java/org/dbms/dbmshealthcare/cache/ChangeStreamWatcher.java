@@ -0,0 +1,109 @@
+package org.dbms.dbmshealthcare.cache;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import java.time.Duration;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.bson.Document;
+
+/**
+ * Follows a change stream on a thread of its own and hands each event to a consumer, reopening
+ * the stream after failures. Caches built on it should only trust their entries while
+ * {@link #isWatching()} is true, and drop them in {@code onOpen}, which runs every time the
+ * stream (re)opens, because events may have been missed while it was down.
+ */
+@Slf4j
+class ChangeStreamWatcher {
+
+  // change streams need a replica set or sharded cluster
+  private static final int CHANGE_STREAMS_UNSUPPORTED = 40573;
+
+  private final String name;
+  private final Supplier<ChangeStreamIterable<Document>> stream;
+  private final Runnable onOpen;
+  private final Consumer<ChangeStreamDocument<Document>> onChange;
+  private final Duration retryInterval;
+  private final ThreadFactory threadFactory;
+
+  private volatile boolean watching;
+  private volatile boolean running = true;
+  private Thread thread;
+
+  ChangeStreamWatcher(String name, Supplier<ChangeStreamIterable<Document>> stream,
+      Runnable onOpen, Consumer<ChangeStreamDocument<Document>> onChange,
+      Duration retryInterval, ThreadFactory threadFactory) {
+    this.name = name;
+    this.stream = stream;
+    this.onOpen = onOpen;
+    this.onChange = onChange;
+    this.retryInterval = retryInterval;
+    this.threadFactory = threadFactory;
+  }
+
+  boolean isWatching() {
+    return watching;
+  }
+
+  void start() {
+    thread = threadFactory.newThread(this::watch);
+    thread.start();
+  }
+
+  void stop() {
+    running = false;
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  static String idOf(BsonValue id) {
+    return id.isObjectId() ? id.asObjectId().getValue().toHexString()
+        : id.isString() ? id.asString().getValue() : id.toString();
+  }
+
+  private void watch() {
+    while (running) {
+      try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor =
+          stream.get().cursor()) {
+        onOpen.run();
+        watching = true;
+        log.info("Watching {} changes", name);
+
+        while (running) {
+          ChangeStreamDocument<Document> change = cursor.tryNext();
+          if (change != null) {
+            onChange.accept(change);
+          }
+        }
+      } catch (MongoCommandException e) {
+        if (e.getErrorCode() == CHANGE_STREAMS_UNSUPPORTED) {
+          log.warn("Change streams unavailable, {} lookups go to MongoDB: {}", name,
+              e.getErrorMessage());
+          return;
+        }
+        log.warn("{} change stream failed, retrying in {}: {}", name, retryInterval,
+            e.getMessage());
+      } catch (RuntimeException e) {
+        if (!running) {
+          return;
+        }
+        log.warn("{} change stream failed, retrying in {}: {}", name, retryInterval,
+            e.getMessage());
+      } finally {
+        watching = false;
+      }
+
+      try {
+        Thread.sleep(retryInterval.toMillis());
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+}
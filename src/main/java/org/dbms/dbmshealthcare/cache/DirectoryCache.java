@@ -0,0 +1,127 @@
+package org.dbms.dbmshealthcare.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.bson.Document;
+import org.dbms.dbmshealthcare.config.ApplicationThreads;
+import org.dbms.dbmshealthcare.model.Doctor;
+import org.dbms.dbmshealthcare.model.Patient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Doctors and patients by id, shared by all callers: every database role the application uses
+ * may read both collections, so a document loaded for one role can be served to another. Misses
+ * are loaded in one batch by the caller-supplied loader. Entries are evicted by the repositories'
+ * own writes and, for writes from other instances, by a change stream over both collections;
+ * while that stream is not open, lookups go straight to the loader. Cached entities are shared
+ * instances and must not be modified.
+ *
+ * <p>Hit and miss counts are published per collection as the {@code doctors} and
+ * {@code patients} cache metrics.
+ */
+@Component
+public class DirectoryCache {
+
+  private final Map<Class<?>, Cache<String, Object>> caches = new HashMap<>();
+  private final Map<String, Class<?>> typesByCollection = new HashMap<>();
+  private final ChangeStreamWatcher watcher;
+
+  @Value("${directory-cache.change-stream.enabled:true}")
+  private boolean watchEnabled;
+
+  public DirectoryCache(@Qualifier("defaultMongoTemplate") MongoTemplate mongoTemplate,
+      MeterRegistry meterRegistry, ApplicationThreads threads,
+      @Value("${directory-cache.max-size:10000}") long maxSize,
+      @Value("${directory-cache.ttl:PT10M}") Duration ttl,
+      @Value("${directory-cache.change-stream.retry-interval:PT10S}") Duration retryInterval) {
+    for (Class<?> type : List.of(Doctor.class, Patient.class)) {
+      String collection = mongoTemplate.getCollectionName(type);
+      Cache<String, Object> cache = Caffeine.newBuilder()
+          .maximumSize(maxSize)
+          .expireAfterWrite(ttl)
+          .recordStats()
+          .build();
+
+      CaffeineCacheMetrics.monitor(meterRegistry, cache, collection);
+      caches.put(type, cache);
+      typesByCollection.put(collection, type);
+    }
+
+    List<Document> pipeline = List.of(new Document("$match", new Document()
+        .append("ns.coll", new Document("$in", List.copyOf(typesByCollection.keySet())))
+        .append("operationType",
+            new Document("$in", List.of("update", "replace", "delete")))));
+    this.watcher = new ChangeStreamWatcher("directory",
+        () -> mongoTemplate.getDb().watch(pipeline),
+        () -> caches.values().forEach(Cache::invalidateAll), this::apply,
+        retryInterval, threads.factory("directory-change-stream-"));
+  }
+
+  public <T> T get(Class<T> type, String id, Function<Set<String>, Map<String, T>> loader) {
+    return getAll(type, Set.of(id), loader).get(id);
+  }
+
+  /**
+   * The cached entities for {@code ids}, loading all misses with one call to {@code loader}. Ids
+   * the loader does not return are absent from the result and are not cached.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Map<String, T> getAll(Class<T> type, Collection<String> ids,
+      Function<Set<String>, Map<String, T>> loader) {
+    if (!watcher.isWatching()) {
+      return loader.apply(Set.copyOf(ids));
+    }
+
+    return (Map<String, T>) cache(type).getAll(ids,
+        missing -> loader.apply((Set<String>) missing));
+  }
+
+  public void invalidate(Class<?> type, String id) {
+    cache(type).invalidate(id);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void startWatching() {
+    if (watchEnabled) {
+      watcher.start();
+    }
+  }
+
+  @PreDestroy
+  public void stopWatching() {
+    watcher.stop();
+  }
+
+  private Cache<String, Object> cache(Class<?> type) {
+    Cache<String, Object> cache = caches.get(type);
+    if (cache == null) {
+      throw new IllegalArgumentException("No directory cache for " + type.getSimpleName());
+    }
+    return cache;
+  }
+
+  private void apply(ChangeStreamDocument<Document> change) {
+    Class<?> type = change.getNamespace() == null ? null
+        : typesByCollection.get(change.getNamespace().getCollectionName());
+
+    if (type != null && change.getDocumentKey() != null) {
+      invalidate(type, ChangeStreamWatcher.idOf(change.getDocumentKey().get("_id")));
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package org.dbms.dbmshealthcare.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.dbms.dbmshealthcare.config.ApplicationThreads;
+import org.dbms.dbmshealthcare.model.User;
+import org.dbms.dbmshealthcare.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * The current refresh-token id (users.jwt_id) per user id, so a refresh does not have to read the
+ * user document. Login and logout update it directly; a change stream on users applies writes
+ * made by other instances (or by anything else) to jwt_id.
+ *
+ * <p>Entries are only trusted while the change stream is open. If it cannot be opened (e.g. a
+ * standalone server) or drops, lookups go to MongoDB until it is back, and the cache is cleared
+ * on every (re)start because events may have been missed in between.
+ */
+@Component
+public class JwtIdRegistry {
+
+  private static final String JWT_ID = "jwt_id";
+
+  private final UserRepository userRepository;
+  private final Cache<String, String> jwtIds;
+  private final ChangeStreamWatcher watcher;
+
+  @Value("${jwt.jti-cache.change-stream.enabled:true}")
+  private boolean watchEnabled;
+
+  public JwtIdRegistry(UserRepository userRepository,
+      @Qualifier("defaultMongoTemplate") MongoTemplate mongoTemplate,
+      MeterRegistry meterRegistry, ApplicationThreads threads,
+      @Value("${jwt.jti-cache.max-size:10000}") long maxSize,
+      @Value("${jwt.jti-cache.ttl:PT1H}") Duration ttl,
+      @Value("${jwt.jti-cache.change-stream.retry-interval:PT10S}") Duration retryInterval) {
+    this.userRepository = userRepository;
+    this.jwtIds = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, jwtIds, "jwt-ids");
+
+    List<Document> pipeline = List.of(new Document("$match", new Document("operationType",
+        new Document("$in", List.of("update", "replace", "delete")))));
+    this.watcher = new ChangeStreamWatcher("jwt_id",
+        () -> mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+            .watch(pipeline),
+        jwtIds::invalidateAll, this::apply,
+        retryInterval, threads.factory("jwt_id-change-stream-"));
+  }
+
+  /**
+   * Whether {@code jwtId} is the user's current refresh-token id.
+   */
+  public boolean matches(String userId, String jwtId) {
+    String current = watcher.isWatching()
+        ? jwtIds.get(userId, userRepository::findJwtId)
+        : userRepository.findJwtId(userId);
+    return jwtId != null && jwtId.equals(current);
+  }
+
+  /**
+   * Records a jwt_id the caller has just written to the user document.
+   */
+  public void put(String userId, String jwtId) {
+    jwtIds.put(userId, jwtId);
+  }
+
+  /**
+   * Forgets the user's jwt_id after the caller has removed it from the user document.
+   */
+  public void revoke(String userId) {
+    jwtIds.invalidate(userId);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void startWatching() {
+    if (watchEnabled) {
+      watcher.start();
+    }
+  }
+
+  @PreDestroy
+  public void stopWatching() {
+    watcher.stop();
+  }
+
+  private void apply(ChangeStreamDocument<Document> change) {
+    BsonDocument key = change.getDocumentKey();
+    if (key == null) {
+      return;
+    }
+    String userId = ChangeStreamWatcher.idOf(key.get("_id"));
+
+    UpdateDescription description = change.getUpdateDescription();
+    BsonDocument updatedFields = description == null ? null : description.getUpdatedFields();
+    if (updatedFields != null && updatedFields.containsKey(JWT_ID)) {
+      BsonValue jwtId = updatedFields.get(JWT_ID);
+      if (jwtId.isString()) {
+        jwtIds.put(userId, jwtId.asString().getValue());
+      } else {
+        jwtIds.invalidate(userId);
+      }
+    } else if (description == null || (description.getRemovedFields() != null
+        && description.getRemovedFields().contains(JWT_ID))) {
+      // replace, delete, or jwt_id removed
+      jwtIds.invalidate(userId);
+    }
+  }
+}
@@ -0,0 +1,271 @@
+package org.dbms.dbmshealthcare.cache;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import lombok.extern.slf4j.Slf4j;
+import org.dbms.dbmshealthcare.constants.SlotStatus;
+import org.dbms.dbmshealthcare.model.Doctor;
+import org.dbms.dbmshealthcare.model.Slot;
+import org.dbms.dbmshealthcare.pojo.AvailableSlot;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Future AVAILABLE slots held in memory, per doctor in start-time order, so availability browsing
+ * and "earliest slot in a specialization" are answered without a database round trip.
+ *
+ * <p>SlotRepository reports every slot it writes or deletes, and DoctorRepository every doctor;
+ * inside a transaction the change is applied only once it commits. A slot's entries are changed
+ * under its doctor's map entry, so readers never see a slot indexed under one view and not the
+ * other. The whole index is also rebuilt every {@code slots.availability-index.refresh-interval},
+ * which picks up slots and doctors written by other instances or outside the repositories.
+ * Between rebuilds the index can be behind other instances, so a booking is still decided by the
+ * slot's conditional update.
+ */
+@Component
+@Slf4j
+public class SlotAvailabilityIndex {
+
+  private static final Comparator<SlotKey> ORDER =
+      Comparator.comparing(SlotKey::start).thenComparing(SlotKey::id);
+
+  private final MongoTemplate mongoTemplate;
+
+  private final Map<String, ConcurrentSkipListMap<SlotKey, AvailableSlot>> byDoctor =
+      new ConcurrentHashMap<>();
+  private final Map<String, AvailableSlot> byId = new ConcurrentHashMap<>();
+  private final Map<String, Set<String>> doctorsBySpecialization = new ConcurrentHashMap<>();
+  private final Map<String, String> specializationByDoctor = new ConcurrentHashMap<>();
+  private volatile boolean ready;
+
+  @Value("${slots.availability-index.enabled:true}")
+  private boolean enabled;
+
+  public SlotAvailabilityIndex(@Qualifier("defaultMongoTemplate") MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * False until the first rebuild has completed; callers fall back to MongoDB until then.
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Available slots of the doctor starting within [from, to), in start order.
+   */
+  public List<AvailableSlot> findAvailable(String doctorId, LocalDateTime from, LocalDateTime to,
+      int limit) {
+    ConcurrentSkipListMap<SlotKey, AvailableSlot> slots = byDoctor.get(doctorId);
+    if (slots == null) {
+      return List.of();
+    }
+
+    List<AvailableSlot> result = new ArrayList<>();
+    for (AvailableSlot slot : slots.tailMap(new SlotKey(from, ""), true).values()) {
+      if (result.size() == limit || (to != null && !slot.startTime().isBefore(to))) {
+        break;
+      }
+      result.add(slot);
+    }
+    return result;
+  }
+
+  /**
+   * The earliest available slot starting at or after {@code after} with any doctor of the
+   * specialization.
+   */
+  public Optional<AvailableSlot> findEarliest(String specialization, LocalDateTime after) {
+    SlotKey from = new SlotKey(after, "");
+    AvailableSlot earliest = null;
+
+    for (String doctorId : doctorsBySpecialization.getOrDefault(specialization, Set.of())) {
+      ConcurrentSkipListMap<SlotKey, AvailableSlot> slots = byDoctor.get(doctorId);
+      Map.Entry<SlotKey, AvailableSlot> first = slots == null ? null : slots.ceilingEntry(from);
+      if (first != null && (earliest == null
+          || first.getValue().startTime().isBefore(earliest.startTime()))) {
+        earliest = first.getValue();
+      }
+    }
+
+    return Optional.ofNullable(earliest);
+  }
+
+  /**
+   * Applies a slot as it now is in the database: indexed if it is available and in the future,
+   * removed otherwise.
+   */
+  public void onSlotWritten(Slot slot) {
+    afterCommit(() -> {
+      if (slot.getStatus() == SlotStatus.AVAILABLE && slot.getStartTime() != null
+          && slot.getStartTime().isAfter(LocalDateTime.now())) {
+        add(new AvailableSlot(slot.getId(), slot.getDoctorId(), slot.getStartTime(),
+            slot.getEndTime()));
+      } else {
+        remove(slot.getId());
+      }
+    });
+  }
+
+  public void onSlotDeleted(Slot slot) {
+    afterCommit(() -> remove(slot.getId()));
+  }
+
+  /**
+   * Files the doctor under its current specialization, so its slots count for
+   * {@link #findEarliest} as soon as the doctor is written rather than at the next rebuild.
+   */
+  public void onDoctorWritten(Doctor doctor) {
+    afterCommit(() -> setSpecialization(doctor.getId(), doctor.getSpecialization()));
+  }
+
+  /**
+   * Drops the doctor and all of its slots, for deletes that remove the slots without reporting
+   * each one.
+   */
+  public void removeDoctor(String doctorId) {
+    afterCommit(() -> {
+      byDoctor.compute(doctorId, (id, slots) -> {
+        if (slots != null) {
+          slots.values().forEach(slot -> byId.remove(slot.id(), slot));
+        }
+        return null;
+      });
+      setSpecialization(doctorId, null);
+    });
+  }
+
+  @Scheduled(fixedDelayString = "${slots.availability-index.refresh-interval:PT5M}")
+  public void rebuild() {
+    if (!enabled) {
+      return;
+    }
+
+    try {
+      Query slotQuery = Query.query(Criteria.where("status").is(SlotStatus.AVAILABLE)
+          .and("start_time").gt(LocalDateTime.now()));
+      slotQuery.fields().include("doctor_id", "start_time", "end_time");
+
+      Query doctorQuery = new Query();
+      doctorQuery.fields().include("specialization");
+
+      Map<String, String> specializations = new HashMap<>();
+      for (Doctor doctor : mongoTemplate.find(doctorQuery, Doctor.class)) {
+        specializations.put(doctor.getId(), doctor.getSpecialization());
+      }
+
+      Map<String, AvailableSlot> slots = new HashMap<>();
+      mongoTemplate.stream(slotQuery, Slot.class).forEach(slot -> slots.put(slot.getId(),
+          new AvailableSlot(slot.getId(), slot.getDoctorId(), slot.getStartTime(),
+              slot.getEndTime())));
+
+      // a slot written after the snapshot was read is out of date here until its next write
+      // or the next rebuild
+      byId.values().stream()
+          .filter(slot -> !slots.containsKey(slot.id()))
+          .map(AvailableSlot::id)
+          .toList()
+          .forEach(this::remove);
+      slots.values().forEach(this::add);
+
+      specializationByDoctor.keySet().stream()
+          .filter(doctorId -> !specializations.containsKey(doctorId))
+          .toList()
+          .forEach(doctorId -> setSpecialization(doctorId, null));
+      specializations.forEach(this::setSpecialization);
+
+      ready = true;
+      log.debug("Availability index rebuilt with {} slots", slots.size());
+    } catch (Exception e) {
+      log.warn("Failed to rebuild the availability index: {}", e.getMessage());
+    }
+  }
+
+  // byId is only changed inside compute on the slot's doctor, which serializes all changes to a
+  // doctor's slots; a slot never moves to another doctor
+  private void add(AvailableSlot slot) {
+    byDoctor.compute(slot.doctorId(), (id, slots) -> {
+      if (slots == null) {
+        slots = new ConcurrentSkipListMap<>(ORDER);
+      }
+      AvailableSlot previous = byId.put(slot.id(), slot);
+      if (previous != null) {
+        slots.remove(keyOf(previous));
+      }
+      slots.put(keyOf(slot), slot);
+      return slots;
+    });
+  }
+
+  private void remove(String slotId) {
+    AvailableSlot indexed = byId.get(slotId);
+    if (indexed == null) {
+      return;
+    }
+
+    byDoctor.computeIfPresent(indexed.doctorId(), (id, slots) -> {
+      AvailableSlot previous = byId.remove(slotId);
+      if (previous != null) {
+        slots.remove(keyOf(previous));
+      }
+      return slots;
+    });
+  }
+
+  private void setSpecialization(String doctorId, String specialization) {
+    specializationByDoctor.compute(doctorId, (id, previous) -> {
+      if (previous != null && !previous.equals(specialization)) {
+        doctorsBySpecialization.computeIfPresent(previous, (s, doctors) -> {
+          doctors.remove(id);
+          return doctors.isEmpty() ? null : doctors;
+        });
+      }
+      if (specialization != null) {
+        doctorsBySpecialization.compute(specialization, (s, doctors) -> {
+          Set<String> updated = doctors == null ? ConcurrentHashMap.newKeySet() : doctors;
+          updated.add(id);
+          return updated;
+        });
+      }
+      return specialization;
+    });
+  }
+
+  private static SlotKey keyOf(AvailableSlot slot) {
+    return new SlotKey(slot.startTime(), slot.id());
+  }
+
+  private void afterCommit(Runnable change) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      change.run();
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        change.run();
+      }
+    });
+  }
+
+  private record SlotKey(LocalDateTime start, String id) {
+
+  }
+}
@@ -0,0 +1,54 @@
+package org.dbms.dbmshealthcare.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Slots being booked or booked through this node, remembered for {@code booking.claim-ttl} so
+ * that further requests for them are turned away without a database round trip. A booking
+ * claims its slot before writing it and gives the claim up if the write fails. SlotRepository
+ * drops a claim as soon as it writes the slot as anything but BOOKED or deletes it, whether
+ * through a cancellation, a batch status change or a delete.
+ */
+@Component
+public class SlotClaims {
+
+  private final Cache<String, Object> claims;
+
+  public SlotClaims(@Value("${booking.claim-ttl:PT30S}") Duration claimTtl) {
+    this.claims = Caffeine.newBuilder()
+        .expireAfterWrite(claimTtl)
+        .build();
+  }
+
+  public boolean isClaimed(String slotId) {
+    return claims.getIfPresent(slotId) != null;
+  }
+
+  public void claim(String slotId) {
+    claims.put(slotId, Boolean.TRUE);
+  }
+
+  /**
+   * Claims the slot for {@code owner} unless someone else holds it. Returns whether
+   * {@code owner} holds the claim now, which it also does if it claimed the slot before.
+   */
+  public boolean tryClaim(String slotId, Object owner) {
+    Object holder = claims.asMap().putIfAbsent(slotId, owner);
+    return holder == null || holder == owner;
+  }
+
+  public void release(String slotId) {
+    claims.invalidate(slotId);
+  }
+
+  /**
+   * Drops the claim if {@code owner} still holds it.
+   */
+  public void release(String slotId, Object owner) {
+    claims.asMap().remove(slotId, owner);
+  }
+}
@@ -0,0 +1,40 @@
+package org.dbms.dbmshealthcare.config;
+
+import java.util.concurrent.ThreadFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Threads for the application's own pools and background loops, which Spring Boot's
+ * {@code spring.threads.virtual.enabled} does not reach: virtual threads when that mode is on,
+ * daemon platform threads otherwise.
+ */
+@Component
+public class ApplicationThreads {
+
+  private final boolean virtual;
+
+  @Autowired
+  public ApplicationThreads(Environment environment) {
+    this(Threading.VIRTUAL.isActive(environment));
+  }
+
+  public ApplicationThreads(boolean virtual) {
+    this.virtual = virtual;
+  }
+
+  public boolean isVirtual() {
+    return virtual;
+  }
+
+  /**
+   * A factory naming its threads {@code prefix} followed by a counter starting at 1.
+   */
+  public ThreadFactory factory(String prefix) {
+    return virtual
+        ? Thread.ofVirtual().name(prefix, 1).factory()
+        : Thread.ofPlatform().name(prefix, 1).daemon().factory();
+  }
+}
@@ -0,0 +1,66 @@
+package org.dbms.dbmshealthcare.config;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import java.util.concurrent.TimeUnit;
+import org.dbms.dbmshealthcare.config.MongoPoolProperties.Pool;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the client settings shared by the blocking and reactive clients: the role's pool sizing
+ * from {@code mongodb.pools.<role>} plus pool metrics tagged with {@code metricsRole}.
+ */
+@Component
+public class MongoClientSettingsFactory {
+
+  private final MongoPoolProperties poolProperties;
+  private final MeterRegistry meterRegistry;
+
+  public MongoClientSettingsFactory(MongoPoolProperties poolProperties,
+      MeterRegistry meterRegistry) {
+    this.poolProperties = poolProperties;
+    this.meterRegistry = meterRegistry;
+  }
+
+  public MongoClientSettings create(String role, String uri) {
+    return create(role, role, uri);
+  }
+
+  public MongoClientSettings create(String role, String metricsRole, String uri) {
+    Pool pool = poolProperties.pool(role);
+
+    return MongoClientSettings.builder()
+        .applyConnectionString(new ConnectionString(uri))
+        .applyToConnectionPoolSettings(builder -> {
+          if (pool != null) {
+            if (pool.minSize() != null) {
+              builder.minSize(pool.minSize());
+            }
+            if (pool.maxSize() != null) {
+              builder.maxSize(pool.maxSize());
+            }
+            if (pool.maxIdleTime() != null) {
+              builder.maxConnectionIdleTime(pool.maxIdleTime().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            if (pool.maxWaitTime() != null) {
+              builder.maxWaitTime(pool.maxWaitTime().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            if (pool.maxConnecting() != null) {
+              builder.maxConnecting(pool.maxConnecting());
+            }
+          }
+
+          builder.addConnectionPoolListener(new MongoMetricsConnectionPoolListener(meterRegistry,
+              event -> Tags.of(
+                  "role", metricsRole,
+                  "cluster.id", event.getServerId().getClusterId().getValue(),
+                  "server.address", event.getServerId().getAddress().toString())));
+          builder.addConnectionPoolListener(
+              new MongoPoolMetricsListener(metricsRole, meterRegistry));
+        })
+        .build();
+  }
+}
@@ -1,6 +1,8 @@
 package org.dbms.dbmshealthcare.config;
 
+import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -10,9 +12,16 @@ import org.springframework.data.mongodb.MongoTransactionManager;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
 
+/**
+ * One MongoClient (and therefore one connection pool and one server monitor) per database role.
+ * The default client is also the application's primary MongoClient, so Spring Boot does not
+ * auto-configure another one behind our back.
+ */
 @Configuration
 public class MongoConfig {
 
+  private static final String DATABASE = "healthcare";
+
   @Value("${spring.data.mongodb.uri}")
   private String defaultMongoUri;
 
@@ -25,29 +34,68 @@ public class MongoConfig {
   @Value("${spring.data.mongodb.patient.uri}")
   private String patientMongoUri;
 
+  private final MongoClientSettingsFactory clientSettingsFactory;
+
+  public MongoConfig(MongoClientSettingsFactory clientSettingsFactory) {
+    this.clientSettingsFactory = clientSettingsFactory;
+  }
+
+  @Primary
+  @Bean(name = "defaultMongoClient", destroyMethod = "close")
+  public MongoClient defaultMongoClient() {
+    return createClient("default", defaultMongoUri);
+  }
+
+  @Bean(name = "adminMongoClient", destroyMethod = "close")
+  public MongoClient adminMongoClient() {
+    return createClient("admin", adminMongoUri);
+  }
+
+  @Bean(name = "doctorMongoClient", destroyMethod = "close")
+  public MongoClient doctorMongoClient() {
+    return createClient("doctor", doctorMongoUri);
+  }
+
+  @Bean(name = "patientMongoClient", destroyMethod = "close")
+  public MongoClient patientMongoClient() {
+    return createClient("patient", patientMongoUri);
+  }
+
+  @Primary
+  @Bean
+  public MongoDatabaseFactory mongoDatabaseFactory(
+      @Qualifier("defaultMongoClient") MongoClient mongoClient) {
+    return new SimpleMongoClientDatabaseFactory(mongoClient, DATABASE);
+  }
+
   @Primary
   @Bean(name = "defaultMongoTemplate")
-  public MongoTemplate defaultMongoTemplate() {
-    return new MongoTemplate(new SimpleMongoClientDatabaseFactory(MongoClients.create(defaultMongoUri), "healthcare"));
+  public MongoTemplate defaultMongoTemplate(MongoDatabaseFactory mongoDatabaseFactory) {
+    return new MongoTemplate(mongoDatabaseFactory);
   }
 
   @Bean(name = "adminMongoTemplate")
-  public MongoTemplate adminMongoTemplate() {
-    return new MongoTemplate(new SimpleMongoClientDatabaseFactory(MongoClients.create(adminMongoUri), "healthcare"));
+  public MongoTemplate adminMongoTemplate(@Qualifier("adminMongoClient") MongoClient mongoClient) {
+    return new MongoTemplate(new SimpleMongoClientDatabaseFactory(mongoClient, DATABASE));
   }
 
   @Bean(name = "doctorMongoTemplate")
-  public MongoTemplate doctorMongoTemplate() {
-    return new MongoTemplate(new SimpleMongoClientDatabaseFactory(MongoClients.create(doctorMongoUri), "healthcare"));
+  public MongoTemplate doctorMongoTemplate(@Qualifier("doctorMongoClient") MongoClient mongoClient) {
+    return new MongoTemplate(new SimpleMongoClientDatabaseFactory(mongoClient, DATABASE));
   }
 
   @Bean(name = "patientMongoTemplate")
-  public MongoTemplate patientMongoTemplate() {
-    return new MongoTemplate(new SimpleMongoClientDatabaseFactory(MongoClients.create(patientMongoUri), "healthcare"));
+  public MongoTemplate patientMongoTemplate(
+      @Qualifier("patientMongoClient") MongoClient mongoClient) {
+    return new MongoTemplate(new SimpleMongoClientDatabaseFactory(mongoClient, DATABASE));
   }
 
   @Bean
   public MongoTransactionManager transactionManager(MongoDatabaseFactory dbFactory) {
     return new MongoTransactionManager(dbFactory);
   }
+
+  private MongoClient createClient(String role, String uri) {
+    return MongoClients.create(clientSettingsFactory.create(role, uri));
+  }
 }
@@ -0,0 +1,153 @@
+package org.dbms.dbmshealthcare.config;
+
+import com.mongodb.client.MongoClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.dbms.dbmshealthcare.repository.BaseMongoRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the indexes declared on each repository's entity (@Indexed / @CompoundIndex) once the
+ * application is up, then explains every query shape the repositories declare and logs the
+ * winning plan. A shape whose plan still scans the whole collection fails startup unless
+ * {@code mongodb.indexes.fail-on-collscan} is off.
+ *
+ * <p>Our MongoTemplates are built by hand, so Spring Data's own auto-index creation never
+ * runs for them; this is the only place indexes get created.
+ */
+@Component
+@Slf4j
+public class MongoIndexManager {
+
+  private final MongoTemplate mongoTemplate;
+  private final MongoClient mongoClient;
+  private final List<BaseMongoRepository<?>> repositories;
+
+  @Value("${mongodb.indexes.enabled:true}")
+  private boolean enabled;
+
+  @Value("${mongodb.indexes.fail-on-collscan:true}")
+  private boolean failOnCollscan;
+
+  @Value("${mongodb.indexes.connect-timeout:5s}")
+  private Duration connectTimeout;
+
+  public MongoIndexManager(@Qualifier("defaultMongoTemplate") MongoTemplate mongoTemplate,
+      @Qualifier("defaultMongoClient") MongoClient mongoClient,
+      List<BaseMongoRepository<?>> repositories) {
+    this.mongoTemplate = mongoTemplate;
+    this.mongoClient = mongoClient;
+    this.repositories = repositories;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void bootstrap() {
+    if (!enabled) {
+      return;
+    }
+
+    if (!awaitWritableServer()) {
+      log.warn("MongoDB not reachable within {}, skipping index bootstrap", connectTimeout);
+      return;
+    }
+
+    MongoConverter converter = mongoTemplate.getConverter();
+    MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+        converter.getMappingContext();
+    IndexResolver indexResolver = IndexResolver.create(mappingContext);
+    QueryMapper queryMapper = new QueryMapper(converter);
+    List<String> collectionScans = new ArrayList<>();
+
+    for (BaseMongoRepository<?> repository : repositories) {
+      Class<?> entityClass = repository.getEntityClass();
+      String collection = mongoTemplate.getCollectionName(entityClass);
+
+      for (IndexDefinition index : indexResolver.resolveIndexFor(entityClass)) {
+        try {
+          mongoTemplate.indexOps(entityClass).ensureIndex(index);
+        } catch (RuntimeException e) {
+          log.error("Failed to create index {} on {}: {}", index.getIndexKeys(), collection,
+              e.getMessage());
+        }
+      }
+
+      MongoPersistentEntity<?> entity = mappingContext.getPersistentEntity(entityClass);
+
+      for (Query shape : repository.getQueryShapes()) {
+        Document find = new Document("find", collection)
+            .append("filter", queryMapper.getMappedObject(shape.getQueryObject(), entity))
+            .append("sort", queryMapper.getMappedSort(shape.getSortObject(), entity));
+
+        Document winningPlan = mongoTemplate.executeCommand(
+                new Document("explain", find).append("verbosity", "queryPlanner"))
+            .get("queryPlanner", Document.class)
+            .get("winningPlan", Document.class);
+
+        String plan = collection + " " + find.get("filter", Document.class).toJson() + " sort "
+            + find.get("sort", Document.class).toJson();
+        log.info("Query plan for {}: {}", plan, winningPlan.toJson());
+
+        if (containsStage(winningPlan, "COLLSCAN")) {
+          collectionScans.add(plan);
+        }
+      }
+    }
+
+    if (collectionScans.isEmpty()) {
+      return;
+    }
+
+    collectionScans.forEach(plan -> log.error("Collection scan for {}", plan));
+
+    if (failOnCollscan) {
+      throw new IllegalStateException(
+          collectionScans.size() + " query shape(s) are not served by an index");
+    }
+  }
+
+  private boolean awaitWritableServer() {
+    long deadline = System.nanoTime() + connectTimeout.toNanos();
+
+    // the cluster description is local state, so polling it never blocks on the network
+    while (!mongoClient.getClusterDescription().hasWritableServer()) {
+      if (System.nanoTime() > deadline) {
+        return false;
+      }
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private boolean containsStage(Object plan, String stage) {
+    if (plan instanceof Document document) {
+      return stage.equals(document.get("stage")) || document.values().stream()
+          .anyMatch(value -> containsStage(value, stage));
+    }
+    if (plan instanceof List<?> list) {
+      return list.stream().anyMatch(value -> containsStage(value, stage));
+    }
+    return false;
+  }
+}
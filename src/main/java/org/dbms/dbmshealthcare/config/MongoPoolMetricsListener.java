@@ -0,0 +1,47 @@
+package org.dbms.dbmshealthcare.config;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutFailedEvent.Reason;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long callers wait to check a connection out of a role's pool, and how often the
+ * checkout fails (typically because the pool stayed exhausted for longer than maxWaitTime).
+ */
+public class MongoPoolMetricsListener implements ConnectionPoolListener {
+
+  private final Timer checkoutWait;
+  private final Map<Reason, Counter> checkoutFailures = new EnumMap<>(Reason.class);
+
+  public MongoPoolMetricsListener(String role, MeterRegistry meterRegistry) {
+    this.checkoutWait = Timer.builder("mongodb.pool.checkout.wait")
+        .description("Time spent waiting for a pooled connection")
+        .tag("role", role)
+        .publishPercentiles(0.5, 0.99)
+        .register(meterRegistry);
+
+    for (Reason reason : Reason.values()) {
+      checkoutFailures.put(reason, Counter.builder("mongodb.pool.checkout.failed")
+          .tag("role", role)
+          .tag("reason", reason.name())
+          .register(meterRegistry));
+    }
+  }
+
+  @Override
+  public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+    checkoutWait.record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+    checkoutFailures.get(event.getReason()).increment();
+  }
+}
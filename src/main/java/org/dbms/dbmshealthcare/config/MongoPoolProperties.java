@@ -0,0 +1,30 @@
+package org.dbms.dbmshealthcare.config;
+
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Connection pool settings for each role-scoped MongoClient, keyed by role name
+ * (default, admin, doctor, patient). Unset values fall back to the connection string and then
+ * to the driver defaults.
+ */
+@ConfigurationProperties(prefix = "mongodb")
+public record MongoPoolProperties(Map<String, Pool> pools) {
+
+  public Pool pool(String role) {
+    return pools == null ? null : pools.get(role);
+  }
+
+  /**
+   * @param minSize       connections kept open even when idle
+   * @param maxSize       upper bound on open connections
+   * @param maxIdleTime   idle connections older than this are closed
+   * @param maxWaitTime   how long a checkout may wait for a free connection before failing
+   * @param maxConnecting connections that may be established concurrently
+   */
+  public record Pool(Integer minSize, Integer maxSize, Duration maxIdleTime,
+                     Duration maxWaitTime, Integer maxConnecting) {
+
+  }
+}
@@ -1,48 +1,136 @@
 package org.dbms.dbmshealthcare.config;
 
-import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.dbms.dbmshealthcare.constants.Role;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
+/**
+ * Picks the MongoTemplate whose database user matches the caller's role. The role is derived
+ * from the authentication once per request and remembered as a request attribute, so the many
+ * repository calls made while serving one request only pay for an attribute lookup.
+ *
+ * <p>Work that runs outside any request, such as {@code @Async} and {@code @Scheduled} tasks,
+ * has no authentication and would fall to the default template; it picks its template
+ * explicitly with {@link #runAs}.
+ */
 @Component
 public class MongoTemplateResolver {
 
-    private final MongoTemplate defaultMongoTemplate;
-    private final MongoTemplate adminMongoTemplate;
-    private final MongoTemplate doctorMongoTemplate;
-    private final MongoTemplate patientMongoTemplate;
-
-    public MongoTemplateResolver(
-            @Qualifier("defaultMongoTemplate") MongoTemplate defaultMongoTemplate,
-            @Qualifier("adminMongoTemplate") MongoTemplate adminMongoTemplate,
-            @Qualifier("doctorMongoTemplate") MongoTemplate doctorMongoTemplate,
-            @Qualifier("patientMongoTemplate") MongoTemplate patientMongoTemplate) {
-        this.defaultMongoTemplate = defaultMongoTemplate;
-        this.adminMongoTemplate = adminMongoTemplate;
-        this.doctorMongoTemplate = doctorMongoTemplate;
-        this.patientMongoTemplate = patientMongoTemplate;
+  private static final String RESOLVED_ROLE_ATTRIBUTE =
+      MongoTemplateResolver.class.getName() + ".RESOLVED_ROLE";
+
+  private final Map<Role, MongoTemplate> templates = new EnumMap<>(Role.class);
+  private final ThreadLocal<Role> runAsRole = new ThreadLocal<>();
+
+  public MongoTemplateResolver(
+      @Qualifier("defaultMongoTemplate") MongoTemplate defaultMongoTemplate,
+      @Qualifier("adminMongoTemplate") MongoTemplate adminMongoTemplate,
+      @Qualifier("doctorMongoTemplate") MongoTemplate doctorMongoTemplate,
+      @Qualifier("patientMongoTemplate") MongoTemplate patientMongoTemplate) {
+    templates.put(Role.ADMIN, adminMongoTemplate);
+    templates.put(Role.DOCTOR, doctorMongoTemplate);
+    templates.put(Role.PATIENT, patientMongoTemplate);
+    templates.put(Role.GUEST, defaultMongoTemplate);
+  }
+
+  public MongoTemplate resolveMongoTemplate() {
+    return templates.get(resolveRole());
+  }
+
+  /**
+   * Runs the work with every template lookup on this thread resolving to {@code role}'s template,
+   * whatever the authentication.
+   */
+  public <T> T runAs(Role role, Supplier<T> work) {
+    Role previous = runAsRole.get();
+    runAsRole.set(role);
+    try {
+      return work.get();
+    } finally {
+      if (previous == null) {
+        runAsRole.remove();
+      } else {
+        runAsRole.set(previous);
+      }
+    }
+  }
+
+  public void runAs(Role role, Runnable work) {
+    runAs(role, () -> {
+      work.run();
+      return null;
+    });
+  }
+
+  /**
+   * Returns the role whose template serves the current caller; unauthenticated callers and guests
+   * resolve to {@link Role#GUEST}, which is served by the default template.
+   */
+  public Role resolveRole() {
+    Role runAs = runAsRole.get();
+    if (runAs != null) {
+      return runAs;
+    }
+
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+    if (authentication == null || !authentication.isAuthenticated()) {
+      return Role.GUEST;
     }
 
-    public MongoTemplate resolveMongoTemplate() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
 
-        if (authentication != null && authentication.isAuthenticated()) {
-            Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
+    if (requestAttributes == null) {
+      return roleOf(authentication);
+    }
 
-            if (authorities.contains(new SimpleGrantedAuthority("ROLE_ADMIN"))) {
-                return adminMongoTemplate;
-            } else if (authorities.contains(new SimpleGrantedAuthority("ROLE_DOCTOR"))) {
-                return doctorMongoTemplate;
-            } else if (authorities.contains(new SimpleGrantedAuthority("ROLE_PATIENT"))) {
-                return patientMongoTemplate;
-            }
-        }
+    Object cached = requestAttributes.getAttribute(RESOLVED_ROLE_ATTRIBUTE,
+        RequestAttributes.SCOPE_REQUEST);
 
-        return defaultMongoTemplate;
+    // the authentication can change within a request (e.g. login), so only trust a match
+    if (cached instanceof ResolvedRole resolved && resolved.authentication() == authentication) {
+      return resolved.role();
     }
-} 
\ No newline at end of file
+
+    Role role = roleOf(authentication);
+    requestAttributes.setAttribute(RESOLVED_ROLE_ATTRIBUTE,
+        new ResolvedRole(authentication, role), RequestAttributes.SCOPE_REQUEST);
+    return role;
+  }
+
+  private Role roleOf(Authentication authentication) {
+    Role role = Role.GUEST;
+
+    for (GrantedAuthority authority : authentication.getAuthorities()) {
+      switch (authority.getAuthority()) {
+        case "ROLE_ADMIN":
+          return Role.ADMIN;
+        case "ROLE_DOCTOR":
+          role = Role.DOCTOR;
+          break;
+        case "ROLE_PATIENT":
+          if (role == Role.GUEST) {
+            role = Role.PATIENT;
+          }
+          break;
+        default:
+          break;
+      }
+    }
+
+    return role;
+  }
+
+  private record ResolvedRole(Authentication authentication, Role role) {
+
+  }
+}
@@ -0,0 +1,93 @@
+package org.dbms.dbmshealthcare.config;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+
+/**
+ * Reactive Streams counterpart of {@link MongoConfig}: one reactive client and template per
+ * database role, sized from the same {@code mongodb.pools.<role>} settings. Their pool metrics
+ * are tagged {@code <role>-reactive} so they can be told apart from the blocking pools.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "mongodb.reactive", name = "enabled", havingValue = "true")
+public class ReactiveMongoConfig {
+
+  private static final String DATABASE = "healthcare";
+
+  @Value("${spring.data.mongodb.uri}")
+  private String defaultMongoUri;
+
+  @Value("${spring.data.mongodb.admin.uri}")
+  private String adminMongoUri;
+
+  @Value("${spring.data.mongodb.doctor.uri}")
+  private String doctorMongoUri;
+
+  @Value("${spring.data.mongodb.patient.uri}")
+  private String patientMongoUri;
+
+  private final MongoClientSettingsFactory clientSettingsFactory;
+
+  public ReactiveMongoConfig(MongoClientSettingsFactory clientSettingsFactory) {
+    this.clientSettingsFactory = clientSettingsFactory;
+  }
+
+  @Bean(name = "defaultReactiveMongoClient", destroyMethod = "close")
+  public MongoClient defaultReactiveMongoClient() {
+    return createClient("default", defaultMongoUri);
+  }
+
+  @Bean(name = "adminReactiveMongoClient", destroyMethod = "close")
+  public MongoClient adminReactiveMongoClient() {
+    return createClient("admin", adminMongoUri);
+  }
+
+  @Bean(name = "doctorReactiveMongoClient", destroyMethod = "close")
+  public MongoClient doctorReactiveMongoClient() {
+    return createClient("doctor", doctorMongoUri);
+  }
+
+  @Bean(name = "patientReactiveMongoClient", destroyMethod = "close")
+  public MongoClient patientReactiveMongoClient() {
+    return createClient("patient", patientMongoUri);
+  }
+
+  @Bean(name = "defaultReactiveMongoTemplate")
+  public ReactiveMongoTemplate defaultReactiveMongoTemplate(
+      @Qualifier("defaultReactiveMongoClient") MongoClient mongoClient) {
+    return createTemplate(mongoClient);
+  }
+
+  @Bean(name = "adminReactiveMongoTemplate")
+  public ReactiveMongoTemplate adminReactiveMongoTemplate(
+      @Qualifier("adminReactiveMongoClient") MongoClient mongoClient) {
+    return createTemplate(mongoClient);
+  }
+
+  @Bean(name = "doctorReactiveMongoTemplate")
+  public ReactiveMongoTemplate doctorReactiveMongoTemplate(
+      @Qualifier("doctorReactiveMongoClient") MongoClient mongoClient) {
+    return createTemplate(mongoClient);
+  }
+
+  @Bean(name = "patientReactiveMongoTemplate")
+  public ReactiveMongoTemplate patientReactiveMongoTemplate(
+      @Qualifier("patientReactiveMongoClient") MongoClient mongoClient) {
+    return createTemplate(mongoClient);
+  }
+
+  private MongoClient createClient(String role, String uri) {
+    return MongoClients.create(clientSettingsFactory.create(role, role + "-reactive", uri));
+  }
+
+  private ReactiveMongoTemplate createTemplate(MongoClient mongoClient) {
+    return new ReactiveMongoTemplate(new SimpleReactiveMongoDatabaseFactory(mongoClient, DATABASE));
+  }
+}
@@ -0,0 +1,54 @@
+package org.dbms.dbmshealthcare.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+import org.dbms.dbmshealthcare.constants.Role;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link MongoTemplateResolver}. Reactive pipelines run on driver threads
+ * where the security context is not available, so the caller's role is resolved once on the
+ * request thread ({@link #withCallerRole}) and carried in the subscriber context; every template
+ * lookup inside the pipeline reads it from there.
+ */
+@Component
+@ConditionalOnProperty(prefix = "mongodb.reactive", name = "enabled", havingValue = "true")
+public class ReactiveMongoTemplateResolver {
+
+  private final Map<Role, ReactiveMongoTemplate> templates = new EnumMap<>(Role.class);
+  private final MongoTemplateResolver mongoTemplateResolver;
+
+  public ReactiveMongoTemplateResolver(MongoTemplateResolver mongoTemplateResolver,
+      @Qualifier("defaultReactiveMongoTemplate") ReactiveMongoTemplate defaultMongoTemplate,
+      @Qualifier("adminReactiveMongoTemplate") ReactiveMongoTemplate adminMongoTemplate,
+      @Qualifier("doctorReactiveMongoTemplate") ReactiveMongoTemplate doctorMongoTemplate,
+      @Qualifier("patientReactiveMongoTemplate") ReactiveMongoTemplate patientMongoTemplate) {
+    this.mongoTemplateResolver = mongoTemplateResolver;
+    templates.put(Role.ADMIN, adminMongoTemplate);
+    templates.put(Role.DOCTOR, doctorMongoTemplate);
+    templates.put(Role.PATIENT, patientMongoTemplate);
+    templates.put(Role.GUEST, defaultMongoTemplate);
+  }
+
+  public Mono<ReactiveMongoTemplate> resolveMongoTemplate() {
+    // refusing to run without a role keeps a pipeline that lost its context off the default user
+    return Mono.deferContextual(context -> context.hasKey(Role.class)
+        ? Mono.just(templates.get(context.get(Role.class)))
+        : Mono.error(new IllegalStateException("No caller role in the subscriber context")));
+  }
+
+  public <T> Flux<T> withCallerRole(Flux<T> flux) {
+    Role role = mongoTemplateResolver.resolveRole();
+    return flux.contextWrite(context -> context.put(Role.class, role));
+  }
+
+  public <T> Mono<T> withCallerRole(Mono<T> mono) {
+    Role role = mongoTemplateResolver.resolveRole();
+    return mono.contextWrite(context -> context.put(Role.class, role));
+  }
+}
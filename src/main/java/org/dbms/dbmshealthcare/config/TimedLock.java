@@ -0,0 +1,55 @@
+package org.dbms.dbmshealthcare.config;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.dbms.dbmshealthcare.exception.ServiceBusyException;
+
+/**
+ * A lock that callers wait for at most {@code timeout}, after which they are turned away with
+ * {@link ServiceBusyException}. {@link TransactionExecutor} can take one around each attempt of
+ * a transaction, so that backoff sleeps between attempts do not hold it.
+ */
+public class TimedLock {
+
+  private final ReentrantLock lock;
+  private final long timeoutNanos;
+  private final Runnable onAcquire;
+
+  public TimedLock(Duration timeout) {
+    this(new ReentrantLock(), timeout.toNanos(), () -> { });
+  }
+
+  private TimedLock(ReentrantLock lock, long timeoutNanos, Runnable onAcquire) {
+    this.lock = lock;
+    this.timeoutNanos = timeoutNanos;
+    this.onAcquire = onAcquire;
+  }
+
+  /**
+   * The same lock, running {@code check} every time it is taken, before the work. A check that
+   * throws turns the caller away without running the work.
+   */
+  public TimedLock checking(Runnable check) {
+    return new TimedLock(lock, timeoutNanos, check);
+  }
+
+  public <T> T call(Supplier<T> work) {
+    try {
+      if (!lock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS)) {
+        throw new ServiceBusyException("Too many concurrent requests, try again shortly");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServiceBusyException("Interrupted while waiting");
+    }
+
+    try {
+      onAcquire.run();
+      return work.get();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package org.dbms.dbmshealthcare.config;
+
+import com.mongodb.MongoException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.dbms.dbmshealthcare.metrics.OperationInstrumentation;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs work in a MongoDB transaction on the caller's role-scoped template. The session is bound
+ * to the database factory of the template {@link MongoTemplateResolver} picks, so every
+ * repository write made by the work joins it; a {@code @Transactional} method would instead
+ * start its session on the default factory, which the role templates never see.
+ *
+ * <p>Work failing with TransientTransactionError (write conflicts, elections) is run again, up
+ * to {@code transactions.max-attempts} times, after a random wait that grows exponentially from
+ * {@code transactions.initial-backoff}. A commit ending in UnknownTransactionCommitResult is
+ * retried on its own. Work already inside a transaction on the same database factory joins it
+ * and is not retried separately; a transaction open on another role's factory is not joined, the
+ * work gets its own. Work that must not overlap other work can pass a {@link TimedLock}, which is
+ * taken around each attempt rather than around the whole retry loop.
+ *
+ * <p>Each operation counts {@code committed}, {@code aborted} (transactions that failed with one
+ * of the two labels above), {@code retried} and
+ * {@code commit-retried} as {@code app.operation.events} and is timed, retries included, as
+ * {@code app.operation}.
+ */
+@Component
+@Slf4j
+public class TransactionExecutor {
+
+  private final MongoTemplateResolver mongoTemplateResolver;
+  private final OperationInstrumentation instrumentation;
+  private final TransactionProperties properties;
+  private final Map<MongoDatabaseFactory, MongoTransactionManager> transactionManagers =
+      new ConcurrentHashMap<>();
+
+  public TransactionExecutor(MongoTemplateResolver mongoTemplateResolver,
+      OperationInstrumentation instrumentation, TransactionProperties properties) {
+    this.mongoTemplateResolver = mongoTemplateResolver;
+    this.instrumentation = instrumentation;
+    this.properties = properties;
+  }
+
+  public void execute(String operation, Runnable work) {
+    execute(operation, () -> {
+      work.run();
+      return null;
+    });
+  }
+
+  public <T> T execute(String operation, Supplier<T> work) {
+    return execute(operation, null, work);
+  }
+
+  /**
+   * Like {@link #execute(String, Supplier)}, holding {@code attemptLock} (when not null) while
+   * each attempt runs and commits, and releasing it before waiting to retry.
+   */
+  public <T> T execute(String operation, TimedLock attemptLock, Supplier<T> work) {
+    MongoDatabaseFactory databaseFactory =
+        mongoTemplateResolver.resolveMongoTemplate().getMongoDatabaseFactory();
+    if (TransactionSynchronizationManager.hasResource(databaseFactory)) {
+      return attemptLock == null ? work.get() : attemptLock.call(work);
+    }
+
+    TransactionTemplate transactionTemplate = new TransactionTemplate(
+        transactionManagers.computeIfAbsent(databaseFactory,
+            RetryingCommitTransactionManager::new));
+    transactionTemplate.setName(operation);
+    long start = instrumentation.start();
+
+    try {
+      for (int attempt = 1; ; attempt++) {
+        try {
+          T result = attemptLock == null
+              ? transactionTemplate.execute(status -> work.get())
+              : attemptLock.call(() -> transactionTemplate.execute(status -> work.get()));
+          instrumentation.count(operation, "committed");
+          return result;
+        } catch (RuntimeException e) {
+          boolean transientError = hasLabel(e, MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+          if (transientError
+              || hasLabel(e, MongoException.UNKNOWN_TRANSACTION_COMMIT_RESULT_LABEL)) {
+            instrumentation.count(operation, "aborted");
+          }
+
+          if (attempt >= properties.maxAttempts() || !transientError) {
+            throw e;
+          }
+
+          instrumentation.count(operation, "retried");
+          log.debug("{} transaction attempt {} failed, retrying: {}", operation, attempt,
+              e.getMessage());
+          backOff(attempt, e);
+        }
+      }
+    } finally {
+      instrumentation.stop(operation, start);
+    }
+  }
+
+  private void backOff(int attempt, RuntimeException cause) {
+    long bound = Math.min(properties.maxBackoff().toNanos(),
+        properties.initialBackoff().toNanos() << Math.min(attempt - 1, 20));
+
+    try {
+      // full jitter, so transactions that collided once do not collide again on the retry
+      Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1) / 1_000_000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw cause;
+    }
+  }
+
+  private static boolean hasLabel(Throwable e, String label) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof MongoException mongoException && mongoException.hasErrorLabel(label)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private class RetryingCommitTransactionManager extends MongoTransactionManager {
+
+    RetryingCommitTransactionManager(MongoDatabaseFactory databaseFactory) {
+      super(databaseFactory);
+    }
+
+    @Override
+    protected void doCommit(MongoTransactionObject transactionObject) throws Exception {
+      for (int retry = 0; ; retry++) {
+        try {
+          transactionObject.commitTransaction();
+          return;
+        } catch (MongoException e) {
+          if (retry >= properties.commitRetries()
+              || !e.hasErrorLabel(MongoException.UNKNOWN_TRANSACTION_COMMIT_RESULT_LABEL)) {
+            throw e;
+          }
+          // the transaction name is the operation passed to execute
+          instrumentation.count(TransactionSynchronizationManager.getCurrentTransactionName(),
+              "commit-retried");
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package org.dbms.dbmshealthcare.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param maxAttempts    runs of a transaction that keeps failing with TransientTransactionError
+ *                       before the error is passed on
+ * @param initialBackoff upper bound of the random wait before the first retry; doubled per retry
+ * @param maxBackoff     cap on that bound
+ * @param commitRetries  extra commit attempts after UnknownTransactionCommitResult
+ */
+@ConfigurationProperties(prefix = "transactions")
+public record TransactionProperties(
+    @DefaultValue("5") int maxAttempts,
+    @DefaultValue("PT0.02S") Duration initialBackoff,
+    @DefaultValue("PT0.5S") Duration maxBackoff,
+    @DefaultValue("3") int commitRetries) {
+
+}
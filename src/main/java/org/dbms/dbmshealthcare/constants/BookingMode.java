@@ -0,0 +1,8 @@
+package org.dbms.dbmshealthcare.constants;
+
+public enum BookingMode {
+  // slot claim and appointment insert in one multi-document transaction
+  TRANSACTIONAL,
+  // slot claim embeds the booking in one findAndModify; the appointment is projected afterwards
+  EMBEDDED
+}
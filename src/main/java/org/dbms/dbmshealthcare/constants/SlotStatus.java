@@ -2,5 +2,6 @@ package org.dbms.dbmshealthcare.constants;
 
 public enum SlotStatus {
   AVAILABLE,
+  HELD,
   BOOKED
 }
@@ -1,22 +1,34 @@
 package org.dbms.dbmshealthcare.controller;
 
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.IndexOptions;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.dbms.dbmshealthcare.dto.analytics.AgeDistributionDto;
 import org.dbms.dbmshealthcare.dto.analytics.AnalyticsFilterDto;
 import org.dbms.dbmshealthcare.dto.analytics.SpecialtyStatsDto;
@@ -36,6 +48,21 @@ public class AnalyticsController {
     private final MongoTemplate mongoTemplate;
     private final AnalyticsService analyticsService;
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final JsonWriterSettings JSON_SETTINGS = JsonWriterSettings.builder()
+            .outputMode(JsonMode.RELAXED)
+            .build();
+
+    @Value("${analytics.aggregate.batch-size:500}")
+    private int aggregateBatchSize;
+
+    @Value("${analytics.aggregate.max-rows:100000}")
+    private int aggregateMaxRows;
+
+    @Value("${analytics.aggregate.max-time:PT30S}")
+    private Duration aggregateMaxTime;
+
     @Operation(summary = "Execute aggregation pipeline", description = "Run a custom MongoDB aggregation pipeline on a specified collection")
     @PostMapping("/aggregate")
     public ResponseEntity<Object> executeAggregation(@RequestBody AggregationRequest request) {
@@ -44,16 +71,9 @@ public class AnalyticsController {
             log.debug("Pipeline: {}", request.getPipeline());
             
             // Parse the aggregation pipeline from the JSON string
-            List<Document> pipeline = new ArrayList<>();
+            List<Document> pipeline;
             try {
-                // Handle both array-style and object-style pipelines
-                if (request.getPipeline().trim().startsWith("[")) {
-                    // Direct array format
-                    pipeline = Document.parse("{ \"pipeline\": " + request.getPipeline() + " }").getList("pipeline", Document.class);
-                } else {
-                    // Wrapped in an object with "pipeline" field
-                    pipeline = Document.parse(request.getPipeline()).getList("pipeline", Document.class);
-                }
+                pipeline = parsePipeline(request.getPipeline());
                 
                 log.info("Successfully parsed pipeline with {} stages", pipeline.size());
             } catch (Exception e) {
@@ -92,6 +112,89 @@ public class AnalyticsController {
         }
     }
 
+    @Operation(summary = "Stream aggregation pipeline results",
+        description = "Run a custom MongoDB aggregation pipeline and stream the results as newline-delimited JSON, one document per line. If the pipeline fails midway, the last line is an object with an \"error\" field. Pipelines ending in $out or $merge are rejected")
+    @PostMapping("/aggregate/stream")
+    public ResponseEntity<?> streamAggregation(@RequestBody AggregationRequest request) {
+        List<Document> pipeline;
+        try {
+            pipeline = parsePipeline(request.getPipeline());
+        } catch (Exception e) {
+            log.error("Error parsing pipeline: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Failed to parse aggregation pipeline",
+                "details", e.getMessage(),
+                "pipeline", request.getPipeline()
+            ));
+        }
+
+        // $out and $merge must be the last stage and return no documents, so there is nothing to
+        // stream and no room for the row cap
+        String lastStage = pipeline.isEmpty() ? null : pipeline.get(pipeline.size() - 1).keySet()
+            .stream().findFirst().orElse(null);
+        if ("$out".equals(lastStage) || "$merge".equals(lastStage)) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Pipelines ending in " + lastStage + " cannot be streamed",
+                "details", "Run them through /api/analytics/aggregate instead",
+                "pipeline", request.getPipeline()
+            ));
+        }
+
+        // the cap is enforced by the server, so an unbounded pipeline never produces more rows
+        pipeline.add(new Document("$limit", aggregateMaxRows));
+
+        log.info("Streaming aggregation on collection: {} ({} stages)", request.getCollection(),
+            pipeline.size());
+
+        // documents are written as they come off the cursor, so at most one batch is held in memory
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(
+                new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            long rows = 0;
+            try (MongoCursor<Document> cursor = mongoTemplate.getCollection(request.getCollection())
+                    .aggregate(pipeline)
+                    .allowDiskUse(true)
+                    .batchSize(aggregateBatchSize)
+                    .maxTime(aggregateMaxTime.toMillis(), TimeUnit.MILLISECONDS)
+                    .cursor()) {
+                while (cursor.hasNext()) {
+                    writer.write(cursor.next().toJson(JSON_SETTINGS));
+                    writer.write('\n');
+                    if (++rows % aggregateBatchSize == 0) {
+                        writer.flush();
+                    }
+                }
+            } catch (RuntimeException e) {
+                // the 200 status has already been sent, so a last error line is the only way to
+                // tell the client that the results are incomplete
+                log.error("Aggregation on {} failed after {} results: {}", request.getCollection(),
+                    rows, e.getMessage(), e);
+                writer.write(new Document("error", "Failed to execute aggregation")
+                    .append("details", e.getMessage())
+                    .append("rows", rows)
+                    .toJson(JSON_SETTINGS));
+                writer.write('\n');
+                writer.flush();
+                return;
+            }
+            writer.flush();
+            log.info("Streamed {} aggregation results from {}", rows, request.getCollection());
+        };
+
+        return ResponseEntity.ok()
+            .contentType(NDJSON)
+            .header("X-Row-Limit", String.valueOf(aggregateMaxRows))
+            .body(body);
+    }
+
+    private List<Document> parsePipeline(String pipeline) {
+        // Handle both array-style and object-style pipelines
+        String wrapped = pipeline.trim().startsWith("[")
+            ? "{ \"pipeline\": " + pipeline + " }"
+            : pipeline;
+        return new ArrayList<>(Document.parse(wrapped).getList("pipeline", Document.class));
+    }
+
     @Operation(summary = "Create database indexes", description = "Create indexes on specified collections to optimize query performance")
     @PostMapping("/indexes")
     public ResponseEntity<Map<String, Object>> createIndexes(@RequestBody IndexRequest request) {
@@ -172,6 +275,14 @@ public class AnalyticsController {
         return ResponseEntity.ok(analyticsService.getSpecialtyStats(filter));
     }
 
+    @Operation(summary = "Rebuild monthly statistics",
+        description = "Recomputes the top-doctor and specialty rollups of the specified month from the appointments collection")
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<String> rebuildMonthlyStats(@RequestBody AnalyticsFilterDto filter) {
+        analyticsService.rebuildMonthlyStats(filter);
+        return ResponseEntity.ok("Monthly statistics rebuilt");
+    }
+
     @Operation(summary = "Get age distribution", 
         description = "Retrieves the age distribution of patients")
     @GetMapping("/age-distribution")
@@ -4,17 +4,26 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.text.ParseException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.dbms.dbmshealthcare.dto.AppointmentCreateDto;
 import org.dbms.dbmshealthcare.dto.AppointmentFilter;
+import org.dbms.dbmshealthcare.dto.AppointmentStatusBatchDto;
 import org.dbms.dbmshealthcare.dto.AppointmentUpdateDto;
 import org.dbms.dbmshealthcare.dto.SlotFilter;
+import org.dbms.dbmshealthcare.dto.SlotScheduleDto;
 import org.dbms.dbmshealthcare.model.Appointment;
 import org.dbms.dbmshealthcare.model.Slot;
+import org.dbms.dbmshealthcare.pojo.AppointmentStatusChangeResult;
+import org.dbms.dbmshealthcare.pojo.AvailableSlot;
+import org.dbms.dbmshealthcare.pojo.SlotScheduleResult;
 import org.dbms.dbmshealthcare.service.AppointmentService;
 import org.dbms.dbmshealthcare.utils.AuthUtils;
+import org.dbms.dbmshealthcare.utils.CursorUtils;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -27,6 +36,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -37,12 +47,31 @@ public class AppointmentController {
 
   private final AppointmentService appointmentService;
 
-  @Operation(summary = "Get available slots", description = "Retrieves a list of available time slots based on the provided filters")
+  @Operation(summary = "Get available slots", description = "Retrieves a page of available time slots based on the provided filters; the next page's cursor is returned in the X-Next-Cursor header")
   @GetMapping("/slots")
   public ResponseEntity<List<Slot>> getSlots(
-      SlotFilter filter) {
-    List<Slot> slots = appointmentService.getSlots(filter);
-    return ResponseEntity.ok(slots);
+      SlotFilter filter,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit) {
+    return CursorUtils.toResponseEntity(appointmentService.getSlots(filter, cursor, limit));
+  }
+
+  @Operation(summary = "Get a doctor's available slots", description = "Available slots of a doctor starting within [from, to), served from the in-memory availability index")
+  @GetMapping("/slots/available")
+  public ResponseEntity<List<AvailableSlot>> getAvailableSlots(
+      @RequestParam String doctorId,
+      @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(required = false) Integer limit) {
+    return ResponseEntity.ok(appointmentService.getAvailableSlots(doctorId, from, to, limit));
+  }
+
+  @Operation(summary = "Get the earliest available slot in a specialization", description = "The earliest available slot starting at or after the given time with any doctor of the specialization")
+  @GetMapping("/slots/earliest")
+  public ResponseEntity<AvailableSlot> getEarliestAvailableSlot(
+      @RequestParam String specialization,
+      @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime after) {
+    return ResponseEntity.ok(appointmentService.getEarliestAvailableSlot(specialization, after));
   }
 
   @GetMapping("/slots/{id}")
@@ -61,6 +90,13 @@ public class AppointmentController {
         : ResponseEntity.badRequest().build();
   }
 
+  @Operation(summary = "Schedule recurring slots", description = "Generates slots from a recurrence rule and inserts those that do not overlap existing slots; returns counts")
+  @PostMapping("/slots/schedule")
+  public ResponseEntity<SlotScheduleResult> scheduleSlots(
+      @Valid @RequestBody SlotScheduleDto slotScheduleDto) {
+    return ResponseEntity.ok(appointmentService.scheduleSlots(slotScheduleDto));
+  }
+
   @Operation(summary = "Delete a slot", description = "Delete a slot by its ID.")
   @DeleteMapping("/slots/{id}")
   public ResponseEntity<String> deleteSlot(@PathVariable String id) {
@@ -68,7 +104,20 @@ public class AppointmentController {
     return ResponseEntity.ok("Slot deleted successfully");
   }
 
-  @Operation(summary = "Create a new appointment", description = "Books an appointment in an available time slot based on the provided data")
+  @Operation(summary = "Hold a slot", description = "Reserves an available slot for the calling patient until the returned holdExpiresAt; booking it confirms the hold")
+  @PostMapping("/slots/{id}/hold")
+  public ResponseEntity<Slot> holdSlot(@PathVariable String id) {
+    return ResponseEntity.ok(appointmentService.holdSlot(id));
+  }
+
+  @Operation(summary = "Release a slot hold", description = "Gives up the calling patient's hold on a slot")
+  @DeleteMapping("/slots/{id}/hold")
+  public ResponseEntity<String> releaseSlotHold(@PathVariable String id) {
+    appointmentService.releaseSlotHold(id);
+    return ResponseEntity.ok("Slot hold released");
+  }
+
+  @Operation(summary = "Create a new appointment", description = "Books an appointment in an available time slot, or one held by the caller, based on the provided data")
   @PostMapping("/appointments")
   public ResponseEntity<Appointment> createAppointment(
      @Valid @RequestBody AppointmentCreateDto appointmentCreateDto) {
@@ -91,11 +140,21 @@ public class AppointmentController {
     return ResponseEntity.ok("Appointment updated successfully");
   }
 
+  @Operation(summary = "Update appointment statuses", description = "Applies many status changes in one transaction and returns the outcome of each")
+  @PutMapping("/appointments/statuses")
+  public ResponseEntity<List<AppointmentStatusChangeResult>> updateAppointmentStatuses(
+      @Valid @RequestBody AppointmentStatusBatchDto appointmentStatusBatchDto) {
+    return ResponseEntity.ok(
+        appointmentService.updateAppointmentStatuses(appointmentStatusBatchDto));
+  }
+
   @GetMapping("/appointments")
   public ResponseEntity<List<Appointment>> getAppointments(
-      AppointmentFilter filter) {
-    List<Appointment> appointments = appointmentService.getAppointments(filter);
-    return ResponseEntity.ok(appointments);
+      AppointmentFilter filter,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit) {
+    return CursorUtils.toResponseEntity(
+        appointmentService.getAppointments(filter, cursor, limit));
   }
 
   @Operation(summary = "Delete appointment", description = "Cancels and removes an appointment from the system by its ID")
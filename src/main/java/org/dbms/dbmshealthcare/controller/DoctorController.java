@@ -6,6 +6,7 @@ import org.dbms.dbmshealthcare.dto.DoctorCreateDto;
 import org.dbms.dbmshealthcare.dto.DoctorUpdateDto;
 import org.dbms.dbmshealthcare.model.Doctor;
 import org.dbms.dbmshealthcare.service.DoctorService;
+import org.dbms.dbmshealthcare.utils.CursorUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -15,6 +16,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -35,8 +37,10 @@ public class DoctorController {
   }
 
   @GetMapping
-  public List<Doctor> getAllDoctors() {
-    return doctorService.getAllDoctors();
+  public ResponseEntity<List<Doctor>> getAllDoctors(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit) {
+    return CursorUtils.toResponseEntity(doctorService.getAllDoctors(cursor, limit));
   }
 
   @GetMapping("/{id}")
@@ -7,7 +7,9 @@ import org.dbms.dbmshealthcare.dto.PatientCreateDto;
 import org.dbms.dbmshealthcare.dto.PatientUpdateDto;
 import org.dbms.dbmshealthcare.model.Patient;
 import org.dbms.dbmshealthcare.service.PatientService;
+import org.dbms.dbmshealthcare.utils.CursorUtils;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -15,6 +17,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -36,10 +39,12 @@ public class PatientController {
     return patientService.createPatient(patientCreateDto);
   }
 
-  @Operation(summary = "Get all patients", description = "Retrieves a list of all patients in the system")
+  @Operation(summary = "Get all patients", description = "Retrieves a page of patients in the system; the next page's cursor is returned in the X-Next-Cursor header")
   @GetMapping
-  public List<Patient> getAllPatients() {
-    return patientService.getAllPatients();
+  public ResponseEntity<List<Patient>> getAllPatients(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit) {
+    return CursorUtils.toResponseEntity(patientService.getAllPatients(cursor, limit));
   }
 
   @Operation(summary = "Get patient by ID", description = "Retrieves a specific patient by their unique identifier")
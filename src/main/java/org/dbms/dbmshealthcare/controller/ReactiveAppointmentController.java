@@ -0,0 +1,58 @@
+package org.dbms.dbmshealthcare.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.dbms.dbmshealthcare.dto.AppointmentFilter;
+import org.dbms.dbmshealthcare.dto.SlotFilter;
+import org.dbms.dbmshealthcare.model.Appointment;
+import org.dbms.dbmshealthcare.model.Slot;
+import org.dbms.dbmshealthcare.service.ReactiveAppointmentService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/reactive")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "mongodb.reactive", name = "enabled", havingValue = "true")
+@Tag(name = "Reactive Appointment Controller", description = "Non-blocking, read-only API endpoints for browsing slots and appointments")
+public class ReactiveAppointmentController {
+
+  private final ReactiveAppointmentService appointmentService;
+
+  @Operation(summary = "Stream slots", description = "Streams time slots matching the provided filters as newline-delimited JSON, ordered by start time")
+  @GetMapping(value = "/slots", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<Slot> getSlots(SlotFilter filter,
+      @RequestParam(required = false) Integer limit) {
+    return appointmentService.getSlots(filter, limit);
+  }
+
+  @GetMapping("/slots/{id}")
+  public Mono<ResponseEntity<Slot>> getSlotById(@PathVariable String id) {
+    return appointmentService.getSlotById(id)
+        .map(ResponseEntity::ok)
+        .defaultIfEmpty(ResponseEntity.notFound().build());
+  }
+
+  @Operation(summary = "Stream appointments", description = "Streams the caller's appointments matching the provided filters as newline-delimited JSON, ordered by slot start time")
+  @GetMapping(value = "/appointments", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<Appointment> getAppointments(AppointmentFilter filter,
+      @RequestParam(required = false) Integer limit) {
+    return appointmentService.getAppointments(filter, limit);
+  }
+
+  @GetMapping("/appointments/{id}")
+  public Mono<ResponseEntity<Appointment>> getAppointment(@PathVariable String id) {
+    return appointmentService.getAppointmentById(id)
+        .map(ResponseEntity::ok)
+        .defaultIfEmpty(ResponseEntity.notFound().build());
+  }
+}
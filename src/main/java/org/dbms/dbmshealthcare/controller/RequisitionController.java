@@ -7,7 +7,9 @@ import org.dbms.dbmshealthcare.constants.RequisitionStatus;
 import org.dbms.dbmshealthcare.dto.RequisitionCreateDto;
 import org.dbms.dbmshealthcare.model.Requisition;
 import org.dbms.dbmshealthcare.service.RequisitionService;
+import org.dbms.dbmshealthcare.utils.CursorUtils;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -36,21 +38,15 @@ public class RequisitionController {
     return requisitionService.createRequisition(requisitionCreateDto);
   }
 
-  @Operation(summary = "Get all requisitions", description = "Retrieves all requisitions with optional filtering by medical record ID and/or status")
+  @Operation(summary = "Get all requisitions", description = "Retrieves a page of requisitions with optional filtering by medical record ID and/or status; the next page's cursor is returned in the X-Next-Cursor header")
   @GetMapping
-  public List<Requisition> getAllRequisitions(
+  public ResponseEntity<List<Requisition>> getAllRequisitions(
       @RequestParam(required = false) String medicalRecordId,
-      @RequestParam(required = false) RequisitionStatus status) {
-    
-    if (medicalRecordId != null && status != null) {
-      return requisitionService.getRequisitionsByMedicalRecordIdAndStatus(medicalRecordId, status);
-    } else if (medicalRecordId != null) {
-      return requisitionService.getRequisitionsByMedicalRecordId(medicalRecordId);
-    } else if (status != null) {
-      return requisitionService.getRequisitionsByStatus(status);
-    } else {
-      return requisitionService.getAllRequisitions();
-    }
+      @RequestParam(required = false) RequisitionStatus status,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit) {
+    return CursorUtils.toResponseEntity(
+        requisitionService.getRequisitions(medicalRecordId, status, cursor, limit));
   }
 
   @Operation(summary = "Get requisition by ID", description = "Retrieves a specific requisition by its unique identifier")
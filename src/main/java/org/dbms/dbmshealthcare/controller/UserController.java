@@ -7,12 +7,14 @@ import lombok.RequiredArgsConstructor;
 import org.dbms.dbmshealthcare.dto.UserUpdateDto;
 import org.dbms.dbmshealthcare.model.User;
 import org.dbms.dbmshealthcare.service.UserService;
+import org.dbms.dbmshealthcare.utils.CursorUtils;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -31,9 +33,9 @@ public class UserController {
   }
 
   @GetMapping
-  public ResponseEntity<List<User>> getUsers(){
-    List<User> users = userService.getUsers();
-    return ResponseEntity.ok(users);
+  public ResponseEntity<List<User>> getUsers(@RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit){
+    return CursorUtils.toResponseEntity(userService.getUsers(cursor, limit));
   }
 
   @PutMapping("/{id}")
@@ -0,0 +1,22 @@
+package org.dbms.dbmshealthcare.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Status changes for many appointments, applied together by PUT /api/appointments/statuses.
+ */
+public record AppointmentStatusBatchDto(
+    @NotEmpty @Size(max = 500) List<@Valid AppointmentStatusChangeDto> changes
+) {
+
+  @AssertTrue(message = "each appointment may appear only once")
+  public boolean isEachAppointmentOnce() {
+    return changes == null
+        || changes.stream().map(AppointmentStatusChangeDto::id).distinct().count()
+        == changes.size();
+  }
+}
@@ -0,0 +1,9 @@
+package org.dbms.dbmshealthcare.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import org.dbms.dbmshealthcare.constants.AppointmentStatus;
+
+public record AppointmentStatusChangeDto(@NotBlank String id, @NotNull AppointmentStatus status) {
+
+}
@@ -0,0 +1,38 @@
+package org.dbms.dbmshealthcare.dto;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+
+/**
+ * A recurring availability rule: on each of {@code days} between {@code from} and {@code to}
+ * (inclusive, minus {@code exclusions}), back-to-back slots of {@code durationMinutes} from
+ * {@code startTime} until no further slot fits before {@code endTime}. {@code doctorId} defaults
+ * to the calling doctor.
+ */
+public record SlotScheduleDto(
+    String doctorId,
+    @NotNull LocalDate from,
+    @NotNull LocalDate to,
+    @NotEmpty Set<DayOfWeek> days,
+    @NotNull LocalTime startTime,
+    @NotNull LocalTime endTime,
+    @Positive int durationMinutes,
+    Set<LocalDate> exclusions
+) {
+
+  @AssertTrue(message = "to must not be before from")
+  public boolean isDateRangeValid() {
+    return from == null || to == null || !to.isBefore(from);
+  }
+
+  @AssertTrue(message = "endTime must be after startTime")
+  public boolean isTimeRangeValid() {
+    return startTime == null || endTime == null || endTime.isAfter(startTime);
+  }
+}
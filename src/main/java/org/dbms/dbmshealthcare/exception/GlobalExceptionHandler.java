@@ -1,6 +1,9 @@
 package org.dbms.dbmshealthcare.exception;
 
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -19,6 +22,34 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
   }
 
+  @ExceptionHandler(InvalidCursorException.class)
+  public ResponseEntity<String> handleInvalidCursor(InvalidCursorException ex) {
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+  }
+
+  @ExceptionHandler(ServiceBusyException.class)
+  public ResponseEntity<String> handleServiceBusy(ServiceBusyException ex) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(ex.getMessage());
+  }
+
+  @ExceptionHandler(HoldLimitExceededException.class)
+  public ResponseEntity<String> handleHoldLimitExceeded(HoldLimitExceededException ex) {
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+  }
+
+  // e.g. a second slot for the same doctor and start time
+  @ExceptionHandler(DuplicateKeyException.class)
+  public ResponseEntity<String> handleDuplicateKey(DuplicateKeyException ex) {
+    return ResponseEntity.status(HttpStatus.CONFLICT).body("Duplicate entry");
+  }
+
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  public ResponseEntity<String> handleConcurrentChange(OptimisticLockingFailureException ex) {
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+  }
+
   @ExceptionHandler(UncategorizedMongoDbException.class)
   public ResponseEntity<String> handleMongoAccessError(UncategorizedMongoDbException ex) {
     if (ex.getMessage().contains("Unauthorized")) {
@@ -0,0 +1,8 @@
+package org.dbms.dbmshealthcare.exception;
+
+public class HoldLimitExceededException extends RuntimeException {
+
+  public HoldLimitExceededException(String message) {
+    super(message);
+  }
+}
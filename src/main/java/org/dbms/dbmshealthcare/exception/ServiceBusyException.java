@@ -0,0 +1,8 @@
+package org.dbms.dbmshealthcare.exception;
+
+public class ServiceBusyException extends RuntimeException {
+
+  public ServiceBusyException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,106 @@
+package org.dbms.dbmshealthcare.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Timers, counters and sampled trace events for hot request paths, published as
+ * {@code app.operation} (timer, tag operation) and {@code app.operation.events} (counter, tags
+ * operation and event) on the metrics endpoint.
+ *
+ * <p>Meters are registered on first use and looked up by name afterwards, and the API takes
+ * primitives, so a call site allocates nothing once warm and nothing at all when instrumentation
+ * is disabled. Trace events are written at debug level for one in
+ * {@code instrumentation.trace-sample-rate} calls.
+ */
+@Component
+@Slf4j
+public class OperationInstrumentation {
+
+  private final MeterRegistry meterRegistry;
+  private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+  private final Map<String, Map<String, Counter>> counters = new ConcurrentHashMap<>();
+
+  @Value("${instrumentation.enabled:true}")
+  private boolean enabled;
+
+  @Value("${instrumentation.trace-sample-rate:100}")
+  private int traceSampleRate;
+
+  public OperationInstrumentation(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Returns the start timestamp to pass to {@link #stop}.
+   */
+  public long start() {
+    return enabled ? System.nanoTime() : 0L;
+  }
+
+  public void stop(String operation, long startNanos) {
+    if (!enabled) {
+      return;
+    }
+
+    Timer timer = timers.get(operation);
+    if (timer == null) {
+      timer = timers.computeIfAbsent(operation, name -> Timer.builder("app.operation")
+          .tag("operation", name)
+          .publishPercentiles(0.5, 0.99)
+          .register(meterRegistry));
+    }
+    timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void count(String operation, String event) {
+    count(operation, event, 1);
+  }
+
+  public void count(String operation, String event, long amount) {
+    if (!enabled) {
+      return;
+    }
+
+    Map<String, Counter> operationCounters = counters.get(operation);
+    if (operationCounters == null) {
+      operationCounters = counters.computeIfAbsent(operation, name -> new ConcurrentHashMap<>());
+    }
+
+    Counter counter = operationCounters.get(event);
+    if (counter == null) {
+      counter = operationCounters.computeIfAbsent(event, name -> Counter.builder(
+              "app.operation.events")
+          .tag("operation", operation)
+          .tag("event", name)
+          .register(meterRegistry));
+    }
+    counter.increment(amount);
+  }
+
+  public void trace(String operation, String event, long value) {
+    if (!enabled || !log.isDebugEnabled() || !sampled()) {
+      return;
+    }
+    log.debug("{} {}={}", operation, event, value);
+  }
+
+  public void trace(String operation, String event, String value) {
+    if (!enabled || !log.isDebugEnabled() || !sampled()) {
+      return;
+    }
+    log.debug("{} {}={}", operation, event, value);
+  }
+
+  private boolean sampled() {
+    return traceSampleRate <= 1 || ThreadLocalRandom.current().nextInt(traceSampleRate) == 0;
+  }
+}
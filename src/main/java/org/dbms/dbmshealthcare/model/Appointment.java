@@ -1,5 +1,6 @@
 package org.dbms.dbmshealthcare.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.Instant;
 import lombok.Data;
 import org.dbms.dbmshealthcare.constants.AppointmentStatus;
@@ -7,10 +8,18 @@ import org.dbms.dbmshealthcare.model.pojo.SlotDetails;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 @Document(collection = "appointments")
+@CompoundIndexes({
+    @CompoundIndex(name = "patient_status_start", def = "{'patient_id': 1, 'status': 1, 'slot.startTime': 1, '_id': 1}"),
+    @CompoundIndex(name = "doctor_status_start", def = "{'doctor_id': 1, 'status': 1, 'slot.startTime': 1, '_id': 1}"),
+    @CompoundIndex(name = "status_start", def = "{'status': 1, 'slot.startTime': 1, '_id': 1}"),
+    @CompoundIndex(name = "start", def = "{'slot.startTime': 1, '_id': 1}")
+})
 @Data
 public class Appointment {
   @Id
@@ -35,6 +44,12 @@ public class Appointment {
 
   private AppointmentStatus status = AppointmentStatus.PENDING_APPROVAL;
 
+  // set while APPROVED: the specialization the approval was counted under, so that leaving
+  // APPROVED uncounts it there even if the doctor's specialization has changed since
+  @JsonIgnore
+  @Field(name = "approved_specialization")
+  private String approvedSpecialization;
+
   @Field(name = "created_at")
   @CreatedDate
   private Instant createdAt;
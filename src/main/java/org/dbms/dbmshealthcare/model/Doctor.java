@@ -30,6 +30,7 @@ public class Doctor {
 //  private String phoneNumber;
 
   @Field(name = "user_id")
+  @Indexed
   private String userId;
 
   @Field(name = "created_at")
@@ -0,0 +1,33 @@
+package org.dbms.dbmshealthcare.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * Approved appointment count for one doctor in one month, maintained incrementally as
+ * appointments move to or from APPROVED.
+ */
+@Document(collection = "doctor_monthly_stats")
+@CompoundIndex(name = "month_approved", def = "{'month': 1, 'approved_count': -1}")
+@Data
+public class DoctorMonthlyStats {
+  // "<yyyy-MM>:<doctor id>"
+  @Id
+  private String id;
+
+  private String month;
+
+  @Field(name = "doctor_id")
+  private String doctorId;
+
+  @Field(name = "doctor_name")
+  private String doctorName;
+
+  private String specialization;
+
+  @Field(name = "approved_count")
+  private long approvedCount;
+}
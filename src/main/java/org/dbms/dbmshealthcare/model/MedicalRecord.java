@@ -9,6 +9,7 @@ import org.dbms.dbmshealthcare.model.pojo.Prescription;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -19,9 +20,11 @@ public class MedicalRecord {
   private String id;
 
   @Field(name = "patient_id")
+  @Indexed
   private String patientId;
 
   @Field(name = "doctor_id")
+  @Indexed
   private String doctorId;
 
   @NotBlank
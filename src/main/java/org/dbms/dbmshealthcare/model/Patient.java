@@ -24,6 +24,7 @@ public class Patient {
   private final String address;
 
   @Field(name = "user_id")
+  @Indexed
   private String userId;
 
   @Field(name = "created_at")
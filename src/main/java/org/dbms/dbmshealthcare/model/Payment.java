@@ -6,6 +6,7 @@ import org.dbms.dbmshealthcare.constants.PaymentStatus;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import lombok.Data;
@@ -17,6 +18,7 @@ public class Payment {
   private String id;
 
   @Field(name="medical_record_id")
+  @Indexed
   private String medicalRecordId;
 
   private BigDecimal amount;
@@ -8,10 +8,16 @@ import org.dbms.dbmshealthcare.model.pojo.RequisitionResult;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 @Document(collection = "requisitions")
+@CompoundIndexes({
+    @CompoundIndex(name = "medical_record_status", def = "{'medical_record_id': 1, 'status': 1}"),
+    @CompoundIndex(name = "status", def = "{'status': 1}")
+})
 @Data
 public class Requisition {
   @Id
@@ -1,17 +1,32 @@
 package org.dbms.dbmshealthcare.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import lombok.Data;
 import org.dbms.dbmshealthcare.constants.SlotStatus;
+import org.dbms.dbmshealthcare.model.pojo.SlotBooking;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 @Document(collection = "slots")
+@CompoundIndexes({
+    @CompoundIndex(name = "doctor_start_unique", def = "{'doctor_id': 1, 'start_time': 1}",
+        unique = true),
+    @CompoundIndex(name = "doctor_status_start", def = "{'doctor_id': 1, 'status': 1, 'start_time': 1, '_id': 1}"),
+    @CompoundIndex(name = "status_start", def = "{'status': 1, 'start_time': 1, '_id': 1}"),
+    @CompoundIndex(name = "start", def = "{'start_time': 1, '_id': 1}"),
+    @CompoundIndex(name = "booking_booked_at", def = "{'booking.bookedAt': 1}", sparse = true),
+    @CompoundIndex(name = "status_hold_expires", def = "{'status': 1, 'hold_expires_at': 1}"),
+    @CompoundIndex(name = "held_by_hold_expires", def = "{'held_by': 1, 'hold_expires_at': 1}",
+        partialFilter = "{'status': 'HELD'}")
+})
 @Data
 public class Slot {
   @Id
@@ -31,6 +46,23 @@ public class Slot {
 
   private SlotStatus status = SlotStatus.AVAILABLE;
 
+  // set only by the embedded booking mode
+  @JsonIgnore
+  private SlotBooking booking;
+
+  // appointment the slot is BOOKED for, in both booking modes; only it may release the slot
+  @JsonIgnore
+  @Field(name = "appointment_id")
+  private String appointmentId;
+
+  // patient holding the slot while it is HELD
+  @JsonIgnore
+  @Field(name = "held_by")
+  private String heldBy;
+
+  @Field(name = "hold_expires_at")
+  private Instant holdExpiresAt;
+
   @Field(name = "created_at")
   @CreatedDate
   private Instant createdAt;
@@ -0,0 +1,27 @@
+package org.dbms.dbmshealthcare.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * Approved appointment count for one specialization in one month, maintained incrementally as
+ * appointments move to or from APPROVED.
+ */
+@Document(collection = "specialty_monthly_stats")
+@Data
+public class SpecialtyMonthlyStats {
+  // "<yyyy-MM>:<specialization>"
+  @Id
+  private String id;
+
+  @Indexed
+  private String month;
+
+  private String specialization;
+
+  @Field(name = "approved_count")
+  private long approvedCount;
+}
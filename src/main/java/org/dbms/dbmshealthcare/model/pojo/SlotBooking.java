@@ -0,0 +1,19 @@
+package org.dbms.dbmshealthcare.model.pojo;
+
+import java.time.Instant;
+import org.dbms.dbmshealthcare.constants.AppointmentStatus;
+
+/**
+ * A booking embedded in its slot by the embedded booking mode, as it was when the slot was
+ * claimed; later status changes are made on the appointment document.
+ */
+public record SlotBooking(
+    String appointmentId,
+    String patientId,
+    String patientName,
+    String visitReason,
+    AppointmentStatus status,
+    Instant bookedAt
+) {
+
+}
@@ -0,0 +1,17 @@
+package org.dbms.dbmshealthcare.pojo;
+
+/**
+ * The outcome of one item of a batch status change.
+ *
+ * @param releasedSlotId the appointment's slot, when the change made it available again
+ */
+public record AppointmentStatusChangeResult(String id, Outcome outcome, String releasedSlotId) {
+
+  public enum Outcome {
+    UPDATED,
+    // the appointment already had the requested status
+    UNCHANGED,
+    // the appointment does not exist or belongs to another doctor or patient
+    NOT_FOUND
+  }
+}
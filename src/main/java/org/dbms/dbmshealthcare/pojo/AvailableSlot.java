@@ -0,0 +1,8 @@
+package org.dbms.dbmshealthcare.pojo;
+
+import java.time.LocalDateTime;
+
+public record AvailableSlot(String id, String doctorId, LocalDateTime startTime,
+                            LocalDateTime endTime) {
+
+}
@@ -0,0 +1,10 @@
+package org.dbms.dbmshealthcare.pojo;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is null on the last page.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+}
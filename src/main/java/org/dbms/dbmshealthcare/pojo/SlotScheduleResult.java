@@ -0,0 +1,12 @@
+package org.dbms.dbmshealthcare.pojo;
+
+/**
+ * @param generated slots produced by the schedule rule
+ * @param created   slots inserted
+ * @param skipped   generated slots dropped because they overlap an existing slot
+ * @param failed    slots the database refused to insert, e.g. because another schedule inserted
+ *                  a slot with the same start time first
+ */
+public record SlotScheduleResult(int generated, int created, int skipped, int failed) {
+
+}
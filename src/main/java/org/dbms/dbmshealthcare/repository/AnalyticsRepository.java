@@ -1,8 +1,11 @@
 package org.dbms.dbmshealthcare.repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
-import java.time.Period;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -12,41 +15,125 @@ import org.dbms.dbmshealthcare.constants.AppointmentStatus;
 import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
 import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
+import org.dbms.dbmshealthcare.config.TransactionExecutor;
 import org.dbms.dbmshealthcare.dto.analytics.AgeDistributionDto;
 import org.dbms.dbmshealthcare.dto.analytics.SpecialtyStatsDto;
 import org.dbms.dbmshealthcare.dto.analytics.TopDoctorsDto;
 import org.dbms.dbmshealthcare.dto.analytics.RoleDistributionDto;
 import org.dbms.dbmshealthcare.dto.analytics.DoctorCountBySpecialtyDto;
-import org.dbms.dbmshealthcare.model.User;
+import org.dbms.dbmshealthcare.model.Appointment;
+import org.dbms.dbmshealthcare.model.DoctorMonthlyStats;
+import org.dbms.dbmshealthcare.model.SpecialtyMonthlyStats;
 import org.springframework.data.mongodb.core.aggregation.AggregationResults;
 import org.springframework.data.mongodb.core.aggregation.GroupOperation;
 import org.springframework.data.mongodb.core.aggregation.UnwindOperation;
-import org.springframework.data.mongodb.core.aggregation.LimitOperation;
 import org.springframework.data.mongodb.core.aggregation.MatchOperation;
 import org.springframework.data.mongodb.core.aggregation.ProjectionOperation;
 import org.springframework.data.mongodb.core.aggregation.SortOperation;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 
 
 @Repository
 public class AnalyticsRepository {
 
-  private final MongoTemplateResolver mongoTemplateResolver;
+  // oldest first, matching the ascending date_of_birth boundaries
+  private static final List<String> AGE_GROUPS = List.of(
+      "65+", "55-64", "45-54", "35-44", "25-34", "18-24", "0-17");
+  private static final int[] AGE_GROUP_MIN_AGES = {65, 55, 45, 35, 25, 18};
 
-  public AnalyticsRepository(MongoTemplateResolver mongoTemplateResolver) {
+  private final MongoTemplateResolver mongoTemplateResolver;
+  private final DoctorMonthlyStatsRepository doctorMonthlyStatsRepository;
+  private final SpecialtyMonthlyStatsRepository specialtyMonthlyStatsRepository;
+  private final TransactionExecutor transactionExecutor;
+
+  public AnalyticsRepository(MongoTemplateResolver mongoTemplateResolver,
+      DoctorMonthlyStatsRepository doctorMonthlyStatsRepository,
+      SpecialtyMonthlyStatsRepository specialtyMonthlyStatsRepository,
+      TransactionExecutor transactionExecutor) {
     this.mongoTemplateResolver = mongoTemplateResolver;
+    this.doctorMonthlyStatsRepository = doctorMonthlyStatsRepository;
+    this.specialtyMonthlyStatsRepository = specialtyMonthlyStatsRepository;
+    this.transactionExecutor = transactionExecutor;
   }
 
   public List<TopDoctorsDto> getTopDoctors(YearMonth month) {
+    return doctorMonthlyStatsRepository.findTopByMonth(month, 5).stream()
+        .map(stats -> new TopDoctorsDto(stats.getDoctorId(), stats.getDoctorName(),
+            stats.getSpecialization(), (int) stats.getApprovedCount()))
+        .collect(Collectors.toList());
+  }
+
+  public List<SpecialtyStatsDto> getSpecialtyStats(YearMonth month) {
+    return specialtyMonthlyStatsRepository.findByMonth(month).stream()
+        .map(stats -> new SpecialtyStatsDto(stats.getSpecialization(), stats.getApprovedCount()))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Recomputes a month's rollups from the appointments collection. Only needed to backfill
+   * appointments approved before the rollups existed, or to repair drift. Approved appointments
+   * that predate the stored approved_specialization get their doctor's current one. Both rollups
+   * are swapped in one transaction.
+   */
+  public void rebuildMonthlyStats(YearMonth month) {
+    transactionExecutor.execute("analytics.rebuildMonthlyStats",
+        () -> doRebuildMonthlyStats(month));
+  }
+
+  private void doRebuildMonthlyStats(YearMonth month) {
+    List<TopDoctorsDto> approvedByDoctor = aggregateApprovedByDoctor(month);
+
+    List<DoctorMonthlyStats> doctorStats = approvedByDoctor.stream()
+        .map(row -> {
+          DoctorMonthlyStats stats = new DoctorMonthlyStats();
+          stats.setDoctorId(row.doctorId());
+          stats.setDoctorName(row.doctorName());
+          stats.setSpecialization(row.specialization());
+          stats.setApprovedCount(row.appointmentCount());
+          return stats;
+        })
+        .collect(Collectors.toList());
+
+    approvedByDoctor.stream()
+        .filter(row -> row.specialization() != null)
+        .forEach(row -> mongoTemplateResolver.resolveMongoTemplate().updateMulti(
+            Query.query(approvedIn(month).and("doctor_id").is(row.doctorId())
+                .and("approved_specialization").exists(false)),
+            new Update().set("approved_specialization", row.specialization()), Appointment.class));
+
+    List<SpecialtyMonthlyStats> specialtyStats = aggregateApprovedBySpecialization(month);
+
+    doctorMonthlyStatsRepository.replaceMonth(month, doctorStats);
+    specialtyMonthlyStatsRepository.replaceMonth(month, specialtyStats);
+  }
+
+  private static Criteria approvedIn(YearMonth month) {
     LocalDateTime startDate = month.atDay(1).atStartOfDay();
     LocalDateTime endDate = month.atEndOfMonth().atTime(23, 59, 59);
 
-    MatchOperation matchOperation = Aggregation.match(
-        Criteria.where("slot.startTime").gte(startDate).lte(endDate)
-            .and("status").is(AppointmentStatus.APPROVED.name())  // match the correct status!
-    );
+    return Criteria.where("slot.startTime").gte(startDate).lte(endDate)
+        .and("status").is(AppointmentStatus.APPROVED.name());  // match the correct status!
+  }
+
+  // counted under the specialization stored at approval, as the incremental rollup does
+  private List<SpecialtyMonthlyStats> aggregateApprovedBySpecialization(YearMonth month) {
+    Aggregation aggregation = Aggregation.newAggregation(
+        Aggregation.match(approvedIn(month).and("approved_specialization").ne(null)),
+        Aggregation.group("approved_specialization").count().as("approved_count"),
+        Aggregation.project("approved_count").and("_id").as("specialization")
+            .andExclude("_id"));
+
+    return mongoTemplateResolver.resolveMongoTemplate()
+        .aggregate(aggregation, "appointments", SpecialtyMonthlyStats.class)
+        .getMappedResults();
+  }
+
+  private List<TopDoctorsDto> aggregateApprovedByDoctor(YearMonth month) {
+    MatchOperation matchOperation = Aggregation.match(approvedIn(month));
 
     GroupOperation groupOperation = Aggregation.group("doctor_id")
         .count().as("appointmentCount");
@@ -72,110 +159,72 @@ public class AnalyticsRepository {
         .and("doctorDetails.specialization").as("specialization")
         .and("appointmentCount").as("appointmentCount");
 
-    SortOperation sortOperation = Aggregation.sort(Sort.Direction.DESC, "appointmentCount");
-    LimitOperation limitOperation = Aggregation.limit(5);
-
     Aggregation aggregation = Aggregation.newAggregation(
         matchOperation,
         groupOperation,
         lookupOperation,
         unwindOperation,
-        projectionOperation,
-        sortOperation,
-        limitOperation
+        projectionOperation
     );
 
     AggregationResults<TopDoctorsDto> results = mongoTemplateResolver.resolveMongoTemplate()
         .aggregate(aggregation, "appointments", TopDoctorsDto.class);
 
     return results.getMappedResults();
-}
-
-
-
-
-public List<SpecialtyStatsDto> getSpecialtyStats(YearMonth month) {
-  LocalDateTime startDate = month.atDay(1).atStartOfDay();
-  LocalDateTime endDate = month.atEndOfMonth().atTime(23, 59, 59);
-
-  MatchOperation matchOperation = Aggregation.match(
-      Criteria.where("slot.startTime").gte(startDate).lte(endDate)
-          .and("status").is(AppointmentStatus.APPROVED.name())
-  );
-
-  // Custom $lookup using $expr to match string doctor_id with ObjectId _id
-  Document rawLookup = new Document("$lookup",
-      new Document("from", "doctors")
-          .append("let", new Document("docId", "$doctor_id"))
-          .append("pipeline", List.of(
-              new Document("$match", new Document("$expr",
-                  new Document("$eq", List.of("$_id", new Document("$toObjectId", "$$docId")))
-              ))
-          ))
-          .append("as", "doctorDetails")
-  );
-
-  AggregationOperation lookupOperation = context -> rawLookup;
-
-  UnwindOperation unwindOperation = Aggregation.unwind("doctorDetails");
+  }
 
-  GroupOperation groupOperation = Aggregation.group("doctorDetails.specialization")
-      .count().as("appointmentCount");
+  public List<AgeDistributionDto> getAgeDistribution() {
+    // Someone is at least N years old exactly when they were born before (today - N years + 1 day),
+    // so every age boundary turns into a date boundary and the server can bucket date_of_birth
+    // directly. Only the seven counts come back over the wire.
+    LocalDate today = LocalDate.now();
 
-  SortOperation sortOperation = Aggregation.sort(Sort.Direction.DESC, "appointmentCount");
+    List<Object> boundaries = new ArrayList<>();
+    Map<Date, String> ageGroupsByLowerBoundary = new HashMap<>();
 
-  ProjectionOperation projectionOperation = Aggregation.project()
-      .and("_id").as("specialty")
-      .and("appointmentCount").as("appointmentCount");
+    boundaries.add(toDate(LocalDate.of(1, 1, 1)));
+    ageGroupsByLowerBoundary.put((Date) boundaries.get(0), AGE_GROUPS.get(0));
 
-  Aggregation aggregation = Aggregation.newAggregation(
-      matchOperation,
-      lookupOperation,
-      unwindOperation,
-      groupOperation,
-      sortOperation,
-      projectionOperation
-  );
+    for (int i = 0; i < AGE_GROUP_MIN_AGES.length; i++) {
+      Date boundary = toDate(today.minusYears(AGE_GROUP_MIN_AGES[i]).plusDays(1));
+      boundaries.add(boundary);
+      ageGroupsByLowerBoundary.put(boundary, AGE_GROUPS.get(i + 1));
+    }
 
-  AggregationResults<SpecialtyStatsDto> results = mongoTemplateResolver.resolveMongoTemplate()
-      .aggregate(aggregation, "appointments", SpecialtyStatsDto.class);
+    boundaries.add(toDate(LocalDate.of(9999, 12, 31)));
 
-  return results.getMappedResults();
-}
+    Aggregation aggregation = Aggregation.newAggregation(
+        Aggregation.match(Criteria.where("date_of_birth").ne(null)),
+        Aggregation.bucket("date_of_birth")
+            .withBoundaries(boundaries.toArray())
+            .withDefaultBucket("other")
+            .andOutputCount().as("count")
+    );
 
+    List<Document> buckets = mongoTemplateResolver.resolveMongoTemplate()
+        .aggregate(aggregation, "users", Document.class)
+        .getMappedResults();
 
-  public List<AgeDistributionDto> getAgeDistribution() {
-    // First, get all users with their date of birth
-    List<User> users = mongoTemplateResolver.resolveMongoTemplate()
-        .findAll(User.class);
-
-    // Calculate age groups
-    Map<String, Long> ageGroups = new HashMap<>();
-    LocalDateTime now = LocalDateTime.now();
-
-    for (User user : users) {
-      if (user.getDateOfBirth() != null) {
-        Period period = Period.between(user.getDateOfBirth(), now.toLocalDate());
-        int age = period.getYears();
-        String ageGroup = getAgeGroup(age);
-        ageGroups.merge(ageGroup, 1L, Long::sum);
+    Map<String, Long> counts = new HashMap<>();
+    for (Document bucket : buckets) {
+      String ageGroup = ageGroupsByLowerBoundary.get(bucket.get("_id"));
+      if (ageGroup != null) {
+        counts.put(ageGroup, ((Number) bucket.get("count")).longValue());
       }
     }
 
-    // Convert to DTOs
-    return ageGroups.entrySet().stream()
-        .map(entry -> new AgeDistributionDto(entry.getKey(), entry.getValue()))
-        .collect(Collectors.toList());
+    List<AgeDistributionDto> distribution = new ArrayList<>();
+    for (int i = AGE_GROUPS.size() - 1; i >= 0; i--) {
+      String ageGroup = AGE_GROUPS.get(i);
+      distribution.add(new AgeDistributionDto(ageGroup, counts.getOrDefault(ageGroup, 0L)));
+    }
+
+    return distribution;
   }
 
-  private String getAgeGroup(int age) {
-    if (age < 18) return "0-17";
-    if (age < 25) return "18-24";
-    if (age < 35) return "25-34";
-    if (age < 45) return "35-44";
-    if (age < 55) return "45-54";
-    if (age < 65) return "55-64";
-    return "65+";
+  private Date toDate(LocalDate date) {
+    // same conversion Spring Data applies when it stores a LocalDate
+    return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
   }
 
   public List<DoctorCountBySpecialtyDto> getDoctorCountBySpecialty() {
@@ -1,18 +1,44 @@
 package org.dbms.dbmshealthcare.repository;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.bson.types.ObjectId;
+import org.dbms.dbmshealthcare.cache.AnalyticsCache;
+import org.dbms.dbmshealthcare.cache.AnalyticsCache.Endpoint;
 import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
+import org.dbms.dbmshealthcare.config.TimedLock;
+import org.dbms.dbmshealthcare.config.TransactionExecutor;
 import org.dbms.dbmshealthcare.constants.AppointmentStatus;
+import org.dbms.dbmshealthcare.constants.Role;
 import org.dbms.dbmshealthcare.constants.SlotStatus;
 import org.dbms.dbmshealthcare.exception.EntityNotFoundException;
+import org.dbms.dbmshealthcare.metrics.OperationInstrumentation;
 import org.dbms.dbmshealthcare.model.Appointment;
 import org.dbms.dbmshealthcare.model.Doctor;
 import org.dbms.dbmshealthcare.model.Patient;
 import org.dbms.dbmshealthcare.model.Slot;
+import org.dbms.dbmshealthcare.model.pojo.SlotBooking;
 import org.dbms.dbmshealthcare.model.pojo.SlotDetails;
+import org.dbms.dbmshealthcare.pojo.AppointmentStatusChangeResult;
+import org.dbms.dbmshealthcare.pojo.AppointmentStatusChangeResult.Outcome;
+import org.dbms.dbmshealthcare.pojo.AuthenticatedUserInfo;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public class AppointmentRepository extends BaseMongoRepository<Appointment> {
@@ -20,30 +46,65 @@ public class AppointmentRepository extends BaseMongoRepository<Appointment> {
   private final SlotRepository slotRepository;
   private final DoctorRepository doctorRepository;
   private final PatientRepository patientRepository;
+  private final DoctorMonthlyStatsRepository doctorMonthlyStatsRepository;
+  private final SpecialtyMonthlyStatsRepository specialtyMonthlyStatsRepository;
+  private final AnalyticsCache analyticsCache;
+  private final TransactionExecutor transactionExecutor;
+  private final OperationInstrumentation instrumentation;
 
   public AppointmentRepository(MongoTemplateResolver mongoTemplateResolver,
       SlotRepository slotRepository, DoctorRepository doctorRepository,
-      PatientRepository patientRepository) {
+      PatientRepository patientRepository,
+      DoctorMonthlyStatsRepository doctorMonthlyStatsRepository,
+      SpecialtyMonthlyStatsRepository specialtyMonthlyStatsRepository,
+      AnalyticsCache analyticsCache, TransactionExecutor transactionExecutor,
+      OperationInstrumentation instrumentation) {
     super(mongoTemplateResolver, Appointment.class);
     this.slotRepository = slotRepository;
     this.doctorRepository = doctorRepository;
     this.patientRepository = patientRepository;
+    this.doctorMonthlyStatsRepository = doctorMonthlyStatsRepository;
+    this.specialtyMonthlyStatsRepository = specialtyMonthlyStatsRepository;
+    this.analyticsCache = analyticsCache;
+    this.transactionExecutor = transactionExecutor;
+    this.instrumentation = instrumentation;
   }
 
-  @Transactional
+  @Override
+  public List<Query> getQueryShapes() {
+    Sort byStart = Sort.by("slot.startTime", "_id");
+    return List.of(
+        Query.query(Criteria.where("patient_id").is("").and("slot.startTime")
+            .gte(LocalDateTime.now())).with(byStart),
+        Query.query(Criteria.where("doctor_id").is("").and("status")
+            .is(AppointmentStatus.PENDING_APPROVAL)).with(byStart),
+        Query.query(Criteria.where("status").is(AppointmentStatus.APPROVED).and("slot.startTime")
+            .gte(LocalDateTime.now()).lt(LocalDateTime.now())),
+        new Query().with(byStart));
+  }
+
+  /**
+   * Books the slot and writes the appointment in one transaction, holding {@code lane} around
+   * each attempt.
+   */
   public Appointment create(String patientId,
-      String slotId, String visitReason) {
-    Criteria criteria = Criteria.where("_id").is(slotId).and("status").is(SlotStatus.AVAILABLE);
-    Slot slot = slotRepository.update(slotId, criteria,
-        new Update().set("status", SlotStatus.BOOKED));
+      String slotId, String visitReason, TimedLock lane) {
+    return transactionExecutor.execute("appointments.create", lane,
+        () -> doCreate(patientId, slotId, visitReason));
+  }
+
+  private Appointment doCreate(String patientId, String slotId, String visitReason) {
+    // the id is recorded on the slot, so only this appointment can release it later
+    String appointmentId = new ObjectId().toHexString();
+    Slot slot = slotRepository.book(slotId, patientId, appointmentId);
 
     if (slot == null) {
-      throw new RuntimeException("Slot not available");
+      throw slotRepository.unbookable(slotId);
     }
 
-    Doctor doctor = doctorRepository.findById(slot.getDoctorId());
+    Doctor doctor = doctorRepository.findCachedById(slot.getDoctorId());
 
-    Patient patient = patientRepository.findById(patientId);
+    Patient patient = patientRepository.findCachedById(patientId);
 
     if (doctor == null || patient == null) {
       throw new EntityNotFoundException("Doctor or patient not found");
@@ -52,37 +113,358 @@ public class AppointmentRepository extends BaseMongoRepository<Appointment> {
     Appointment appointment = new Appointment(patientId, slot.getDoctorId(), patient.getName(),
         doctor.getName(),
         new SlotDetails(slotId, slot.getStartTime(), slot.getEndTime()), visitReason);
+    appointment.setId(appointmentId);
 
     return super.save(appointment);
   }
 
-  @Transactional
-  public void update(String id, AppointmentStatus status, String visitReason) {
+  /**
+   * Books the slot without a transaction: one conditional update marks it booked and embeds the
+   * booking, which stands in for the appointment until {@link #insertProjected} writes the
+   * appointment document. Returns the appointment that is to be written.
+   */
+  public Appointment createEmbedded(String patientId, String slotId, String visitReason) {
+    long start = instrumentation.start();
+    try {
+      Patient patient = patientRepository.findCachedById(patientId);
+
+      if (patient == null) {
+        throw new EntityNotFoundException("Doctor or patient not found");
+      }
+
+      SlotBooking booking = new SlotBooking(new ObjectId().toHexString(), patientId,
+          patient.getName(), visitReason, AppointmentStatus.PENDING_APPROVAL, Instant.now());
+      Slot slot = slotRepository.claim(slotId, booking);
+
+      if (slot == null) {
+        throw slotRepository.unbookable(slotId);
+      }
+
+      Doctor doctor = doctorRepository.findCachedById(slot.getDoctorId());
+
+      if (doctor == null) {
+        // nothing to roll back this claim, so give the slot up by hand
+        slotRepository.release(slotId, booking.appointmentId());
+        throw new EntityNotFoundException("Doctor or patient not found");
+      }
+
+      return toAppointment(slot, doctor.getName());
+    } finally {
+      instrumentation.stop("appointments.create.embedded", start);
+    }
+  }
+
+  /**
+   * Writes an appointment produced by {@link #createEmbedded}; writing it again is a no-op.
+   */
+  public void insertProjected(Appointment appointment) {
+    try {
+      getMongoTemplate().insert(appointment);
+    } catch (DuplicateKeyException e) {
+      // projected already, by the booking request or by a reconciliation pass
+    }
+  }
+
+  /**
+   * Appointments for embedded bookings made since {@code since} that have no appointment
+   * document yet.
+   */
+  public List<Appointment> findUnprojected(Instant since) {
+    List<Slot> slots = slotRepository.findBookedSince(since);
+
+    if (slots.isEmpty()) {
+      return List.of();
+    }
+
+    Query projectedQuery = Query.query(Criteria.where("_id").in(
+        slots.stream().map(slot -> slot.getBooking().appointmentId()).toList()));
+    projectedQuery.fields().include("_id");
+    Set<String> projected = getMongoTemplate().find(projectedQuery, Appointment.class).stream()
+        .map(Appointment::getId)
+        .collect(Collectors.toSet());
+
+    List<Slot> unprojected = slots.stream()
+        .filter(slot -> !projected.contains(slot.getBooking().appointmentId()))
+        .toList();
+    Map<String, Doctor> doctors = doctorRepository.findCachedByIds(
+        unprojected.stream().map(Slot::getDoctorId).collect(Collectors.toSet()));
+
+    return unprojected.stream()
+        .map(slot -> {
+          Doctor doctor = doctors.get(slot.getDoctorId());
+          return toAppointment(slot, doctor != null ? doctor.getName() : null);
+        })
+        .toList();
+  }
+
+  /**
+   * Updates an appointment the caller owns, releasing its slot when it is rejected or cancelled.
+   * Returns the appointment as it was before the update.
+   *
+   * @throws EntityNotFoundException when the appointment does not exist or belongs to someone else
+   */
+  public Appointment update(String id, AppointmentStatus status, String visitReason) {
+    return transactionExecutor.execute("appointments.update",
+        () -> doUpdate(id, status, visitReason));
+  }
+
+  private Appointment doUpdate(String id, AppointmentStatus status, String visitReason) {
+    Query query = scopedQuery(id);
     Update appointmentUpdates = new Update();
+    String approvedSpecialization = null;
+
+    if (status == AppointmentStatus.APPROVED) {
+      // approvals are counted under the doctor's specialization at the time of approval, which
+      // is stored by the same write; the read and the write are guarded by the status read
+      Query approvalQuery = scopedQuery(id);
+      approvalQuery.fields().include("doctor_id", "status");
+      Appointment approving = getMongoTemplate().findOne(approvalQuery, Appointment.class);
+
+      if (approving == null) {
+        throw new EntityNotFoundException("Appointment not found or access denied");
+      }
+      if (approving.getStatus() != AppointmentStatus.APPROVED) {
+        approvedSpecialization = specializationOf(
+            doctorRepository.findCachedById(approving.getDoctorId()));
+        appointmentUpdates.set("approved_specialization", approvedSpecialization);
+      }
+      query = scopedQuery(Criteria.where("_id").is(id).and("status").is(approving.getStatus()));
+    }
     if (status != null) {
       appointmentUpdates.set("status", status);
 
+      if (status != AppointmentStatus.APPROVED) {
+        appointmentUpdates.unset("approved_specialization");
+      }
     }
     if (visitReason != null) {
       appointmentUpdates.set("visit_reason", visitReason);
     }
 
-    Appointment updatedAppointment = super.update(id, appointmentUpdates);
+    // the previous version tells us whether the appointment is entering or leaving APPROVED
+    Appointment previousAppointment = getMongoTemplate().findAndModify(query,
+        appointmentUpdates, FindAndModifyOptions.options().returnNew(false), Appointment.class);
+
+    if (previousAppointment == null) {
+      if (status == AppointmentStatus.APPROVED) {
+        throw new OptimisticLockingFailureException(
+            "Appointment changed while it was approved");
+      }
+      throw new EntityNotFoundException("Appointment not found or access denied");
+    }
+
+    long approvalDelta = approvalDelta(previousAppointment.getStatus(), status);
+
+    if (approvalDelta > 0) {
+      recordApprovalChange(previousAppointment, approvedSpecialization, approvalDelta);
+    } else if (approvalDelta < 0) {
+      recordApprovalChange(previousAppointment, approvedSpecialization(previousAppointment),
+          approvalDelta);
+    }
+
+    if (releasesSlot(previousAppointment.getStatus(), status)) {
+      slotRepository.release(previousAppointment.getSlot().id(), id);
+    }
+
+    return previousAppointment;
+  }
+
+  /**
+   * Applies many status changes in one transaction. The caller's appointments are read with one
+   * scoped query (see {@link #ownerCriteria}) and written with one unordered bulk write, each
+   * guarded by the status that was read, plus one bulk write releasing the slots of appointments
+   * that were active and are now rejected or cancelled. A write error, or an
+   * appointment whose status changed after it was read, aborts the whole batch. Returns one
+   * result per change, in the order of {@code changes}.
+   */
+  public List<AppointmentStatusChangeResult> updateStatuses(
+      Map<String, AppointmentStatus> changes) {
+    return transactionExecutor.execute("appointments.updateStatuses",
+        () -> doUpdateStatuses(changes));
+  }
+
+  private List<AppointmentStatusChangeResult> doUpdateStatuses(
+      Map<String, AppointmentStatus> changes) {
+    Map<String, AppointmentStatusChangeResult> results = new HashMap<>();
+
+    // other callers' appointments are not read, and so come back NOT_FOUND like missing ones
+    List<Appointment> appointments = getMongoTemplate().find(
+        scopedQuery(Criteria.where("_id").in(changes.keySet())), Appointment.class);
+
+    // approvals are counted under the doctor's specialization at the time of approval
+    Map<String, Doctor> approvingDoctors = doctorRepository.findCachedByIds(appointments.stream()
+        .filter(appointment -> changes.get(appointment.getId()) == AppointmentStatus.APPROVED)
+        .map(Appointment::getDoctorId)
+        .collect(Collectors.toSet()));
+
+    BulkOperations bulk = getMongoTemplate().bulkOps(BulkMode.UNORDERED, Appointment.class);
+    List<Appointment> changed = new ArrayList<>();
+    Map<String, String> releasedAppointmentsBySlotId = new HashMap<>();
+
+    for (Appointment appointment : appointments) {
+      String id = appointment.getId();
+      AppointmentStatus status = changes.get(id);
 
-    if (updatedAppointment == null) {
-      throw new RuntimeException("Appointment not found or failed to update");
+      if (status == appointment.getStatus()) {
+        results.put(id, new AppointmentStatusChangeResult(id, Outcome.UNCHANGED, null));
+      } else {
+        Update update = new Update().set("status", status);
+        if (status == AppointmentStatus.APPROVED) {
+          update.set("approved_specialization",
+              specializationOf(approvingDoctors.get(appointment.getDoctorId())));
+        } else {
+          update.unset("approved_specialization");
+        }
+        bulk.updateOne(Query.query(Criteria.where("_id").is(id)
+            .and("status").is(appointment.getStatus())), update);
+        changed.add(appointment);
+
+        if (releasesSlot(appointment.getStatus(), status)) {
+          releasedAppointmentsBySlotId.put(appointment.getSlot().id(), id);
+        }
+      }
+    }
+
+    if (!changed.isEmpty()) {
+      int matched = bulk.execute().getMatchedCount();
+      if (matched < changed.size()) {
+        throw new OptimisticLockingFailureException(
+            "Appointments changed while the batch was applied");
+      }
     }
 
-    if (status != null && (status.equals(AppointmentStatus.REJECTED) || status.equals(
-        AppointmentStatus.CANCELLED))) {
+    Set<String> releasedSlotIds = releasedAppointmentsBySlotId.isEmpty() ? Set.of()
+        : slotRepository.releaseAll(releasedAppointmentsBySlotId);
 
-      Update slotUpdates = new Update().set("status", SlotStatus.AVAILABLE);
+    for (Appointment appointment : changed) {
+      String id = appointment.getId();
+      String slotId = appointment.getSlot().id();
+      boolean released = id.equals(releasedAppointmentsBySlotId.get(slotId))
+          && releasedSlotIds.contains(slotId);
+      results.put(id, new AppointmentStatusChangeResult(id, Outcome.UPDATED,
+          released ? slotId : null));
+    }
 
-      Slot updatedSlot = slotRepository.update(updatedAppointment.getSlot().id(), slotUpdates);
+    List<AppointmentStatusChangeResult> ordered = changes.keySet().stream()
+        .map(id -> results.getOrDefault(id,
+            new AppointmentStatusChangeResult(id, Outcome.NOT_FOUND, null)))
+        .toList();
 
-      if (updatedSlot == null) {
-        throw new RuntimeException("Failed to update the associated slot");
+    // approval counters move once per doctor and month rather than once per appointment
+    Map<ApprovalKey, Long> approvalDeltas = new HashMap<>();
+    Map<ApprovalKey, Appointment> representatives = new HashMap<>();
+    for (Appointment appointment : changed) {
+      long delta = approvalDelta(appointment.getStatus(), changes.get(appointment.getId()));
+      if (delta != 0) {
+        String specialization = delta > 0
+            ? specializationOf(approvingDoctors.get(appointment.getDoctorId()))
+            : approvedSpecialization(appointment);
+        ApprovalKey key = new ApprovalKey(appointment.getDoctorId(),
+            YearMonth.from(appointment.getSlot().startTime()), specialization);
+        approvalDeltas.merge(key, delta, Long::sum);
+        representatives.putIfAbsent(key, appointment);
       }
     }
+    approvalDeltas.forEach((key, delta) -> {
+      if (delta != 0) {
+        recordApprovalChange(representatives.get(key), key.specialization(), delta);
+      }
+    });
+
+    return ordered;
+  }
+
+  @Override
+  protected Criteria ownerCriteria(AuthenticatedUserInfo caller) {
+    return ownerCriteriaOf(caller);
+  }
+
+  // shared with ReactiveAppointmentRepository, so both APIs scope appointments the same way
+  static Criteria ownerCriteriaOf(AuthenticatedUserInfo caller) {
+    if (caller.role() == Role.DOCTOR) {
+      return Criteria.where("doctor_id").is(caller.roleId());
+    }
+    if (caller.role() == Role.PATIENT) {
+      return Criteria.where("patient_id").is(caller.roleId());
+    }
+    return null;
+  }
+
+  // runs for delete and deleteScoped alike
+  @Override
+  protected void onDelete(Appointment deleted) {
+    // an embedded booking left behind would be projected into the appointment again
+    slotRepository.update(deleted.getSlot().id(),
+        Criteria.where("booking.appointmentId").is(deleted.getId()),
+        new Update().unset("booking"));
+
+    if (deleted.getStatus() == AppointmentStatus.APPROVED) {
+      recordApprovalChange(deleted, approvedSpecialization(deleted), -1);
+    }
+  }
+
+  // a slot stays booked until its appointment leaves an active state by being rejected or
+  // cancelled; once the appointment is over, its slot may have been released and rebooked
+  private static boolean releasesSlot(AppointmentStatus previous, AppointmentStatus next) {
+    boolean active = previous == AppointmentStatus.PENDING_APPROVAL
+        || previous == AppointmentStatus.APPROVED || previous == AppointmentStatus.IN_PROGRESS;
+    return active && (next == AppointmentStatus.REJECTED || next == AppointmentStatus.CANCELLED);
+  }
+
+  // +1 when the appointment becomes APPROVED, -1 when it stops being APPROVED
+  private static long approvalDelta(AppointmentStatus previous, AppointmentStatus next) {
+    if (next == null || next == previous) {
+      return 0;
+    }
+    return next == AppointmentStatus.APPROVED ? 1
+        : previous == AppointmentStatus.APPROVED ? -1 : 0;
+  }
+
+  private static Appointment toAppointment(Slot slot, String doctorName) {
+    SlotBooking booking = slot.getBooking();
+    Appointment appointment = new Appointment(booking.patientId(), slot.getDoctorId(),
+        booking.patientName(), doctorName,
+        new SlotDetails(slot.getId(), slot.getStartTime(), slot.getEndTime()),
+        booking.visitReason());
+    appointment.setId(booking.appointmentId());
+    appointment.setStatus(booking.status());
+    appointment.setCreatedAt(booking.bookedAt());
+    return appointment;
+  }
+
+  private static String specializationOf(Doctor doctor) {
+    return doctor != null ? doctor.getSpecialization() : null;
+  }
+
+  // appointments approved before the specialization was stored fall back to the doctor's
+  private String approvedSpecialization(Appointment appointment) {
+    return appointment.getApprovedSpecialization() != null
+        ? appointment.getApprovedSpecialization()
+        : specializationOf(doctorRepository.findCachedById(appointment.getDoctorId()));
+  }
+
+  /**
+   * Moves the approval rollups by {@code delta}; the specialty rollup under
+   * {@code specialization}, the one the approval is counted under.
+   */
+  private void recordApprovalChange(Appointment appointment, String specialization, long delta) {
+    YearMonth month = YearMonth.from(appointment.getSlot().startTime());
+    Doctor doctor = doctorRepository.findCachedById(appointment.getDoctorId());
+
+    String doctorName = doctor != null ? doctor.getName() : appointment.getDoctorName();
+
+    doctorMonthlyStatsRepository.increment(month, appointment.getDoctorId(), doctorName,
+        doctor != null ? doctor.getSpecialization() : specialization, delta);
+
+    if (specialization != null) {
+      specialtyMonthlyStatsRepository.increment(month, specialization, delta);
+    }
+
+    analyticsCache.invalidate(Endpoint.TOP_DOCTORS, month);
+    analyticsCache.invalidate(Endpoint.SPECIALTY_STATS, month);
+  }
+
+  private record ApprovalKey(String doctorId, YearMonth month, String specialization) {
+
   }
-}
\ No newline at end of file
+}
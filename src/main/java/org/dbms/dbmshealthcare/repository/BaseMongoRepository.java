@@ -1,10 +1,22 @@
 package org.dbms.dbmshealthcare.repository;
 
+import com.mongodb.client.MongoCursor;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
 import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
+import org.dbms.dbmshealthcare.exception.EntityNotFoundException;
+import org.dbms.dbmshealthcare.pojo.AuthenticatedUserInfo;
+import org.dbms.dbmshealthcare.pojo.CursorPage;
+import org.dbms.dbmshealthcare.utils.AuthUtils;
+import org.dbms.dbmshealthcare.utils.CursorUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
@@ -14,11 +26,29 @@ public abstract class BaseMongoRepository<T> {
 
   private final MongoTemplateResolver mongoTemplateResolver;
   private final Class<T> entityClass;
-  
+
+  @Value("${pagination.default-limit:100}")
+  private int defaultPageSize;
+
+  @Value("${pagination.max-limit:500}")
+  private int maxPageSize;
+
   protected MongoTemplate getMongoTemplate() {
     return mongoTemplateResolver.resolveMongoTemplate();
   }
 
+  public Class<T> getEntityClass() {
+    return entityClass;
+  }
+
+  /**
+   * Representative filter/sort combinations this repository issues. They are explained at startup
+   * to verify that each one is served by an index; the values in them are placeholders.
+   */
+  public List<Query> getQueryShapes() {
+    return List.of();
+  }
+
   public List<T> findAll() {
     return getMongoTemplate().findAll(entityClass);
   }
@@ -27,19 +57,73 @@ public abstract class BaseMongoRepository<T> {
     return getMongoTemplate().find(query, entityClass);
   }
 
+  /**
+   * Returns the page of documents matching {@code query} that follows {@code cursor}, ordered by
+   * {@code sortField} (a stored field path) and then _id. Each page is a bounded index range scan
+   * rather than a skip, so deep pages cost the same as the first one.
+   *
+   * @param cursor continuation token from the previous page, or null for the first page
+   * @param limit  requested page size, capped at {@code pagination.max-limit}
+   */
+  public CursorPage<T> findPage(Query query, String sortField, String cursor, Integer limit) {
+    MongoTemplate mongoTemplate = getMongoTemplate();
+    MongoConverter converter = mongoTemplate.getConverter();
+
+    Document filter = new QueryMapper(converter).getMappedObject(query.getQueryObject(),
+        converter.getMappingContext().getPersistentEntity(entityClass));
+
+    if (cursor != null) {
+      filter = new Document("$and", List.of(filter, keysetFilter(sortField,
+          CursorUtils.decode(cursor))));
+    }
+
+    Document sort = new Document(sortField, 1);
+    sort.putIfAbsent("_id", 1);
+
+    int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+    List<T> items = new ArrayList<>(pageSize);
+    Document last = null;
+    boolean hasMore = false;
+
+    // one extra document tells us whether another page exists without a count
+    try (MongoCursor<Document> results = mongoTemplate.getCollection(
+            mongoTemplate.getCollectionName(entityClass))
+        .find(filter)
+        .sort(sort)
+        .limit(pageSize + 1)
+        .batchSize(pageSize + 1)
+        .iterator()) {
+      while (results.hasNext()) {
+        Document document = results.next();
+        if (items.size() == pageSize) {
+          hasMore = true;
+          break;
+        }
+        items.add(converter.read(entityClass, document));
+        last = document;
+      }
+    }
+
+    String nextCursor = hasMore ? CursorUtils.encode(
+        last.getEmbedded(Arrays.asList(sortField.split("\\.")), Object.class),
+        last.get("_id")) : null;
+
+    return new CursorPage<>(items, nextCursor);
+  }
+
   public T findById(String id) {
     return getMongoTemplate().findById(id, entityClass);
   }
 
   public T save(T entity) {
-    return getMongoTemplate().save(entity);
+    return afterWrite(getMongoTemplate().save(entity), null);
   }
 
   public T delete(String id) {
-    return getMongoTemplate().findAndRemove(
+    return afterDelete(getMongoTemplate().findAndRemove(
         Query.query(Criteria.where("_id").is(id)),
         entityClass
-    );
+    ));
   }
 
   public T delete(String id, Criteria criteria) {
@@ -47,17 +131,17 @@ public abstract class BaseMongoRepository<T> {
         criteria,
         Criteria.where("_id").is(id)
     );
-    return getMongoTemplate().findAndRemove(
+    return afterDelete(getMongoTemplate().findAndRemove(
         Query.query(combinedCriteria),
         entityClass
-    );
+    ));
   }
 
   public T update(String id, Update updates) {
     Query query = Query.query(Criteria.where("_id").is(id));
 
-    return getMongoTemplate().findAndModify(query, updates,
-        FindAndModifyOptions.options().returnNew(true), entityClass);
+    return afterWrite(getMongoTemplate().findAndModify(query, updates,
+        FindAndModifyOptions.options().returnNew(true), entityClass), updates);
   }
 
   public T update(String id, Criteria criteria, Update updates){
@@ -68,11 +152,121 @@ public abstract class BaseMongoRepository<T> {
 
     Query query = new Query(combinedCriteria);
 
-    return getMongoTemplate().findAndModify(
+    return afterWrite(getMongoTemplate().findAndModify(
         query,
         updates,
         FindAndModifyOptions.options().returnNew(true),
         entityClass
-    );
+    ), updates);
+  }
+
+  /**
+   * Like {@link #findById}, but only finds documents the caller owns (see
+   * {@link #ownerCriteria}), in the same round trip.
+   *
+   * @throws EntityNotFoundException when the document does not exist or belongs to someone else
+   */
+  public T findScopedById(String id) {
+    return requireFound(getMongoTemplate().findOne(scopedQuery(id), entityClass));
+  }
+
+  /**
+   * Like {@link #update(String, Update)}, restricted to documents the caller owns.
+   *
+   * @throws EntityNotFoundException when the document does not exist or belongs to someone else
+   */
+  public T updateScoped(String id, Update updates) {
+    return requireFound(afterWrite(getMongoTemplate().findAndModify(scopedQuery(id), updates,
+        FindAndModifyOptions.options().returnNew(true), entityClass), updates));
+  }
+
+  /**
+   * Like {@link #delete(String)}, restricted to documents the caller owns.
+   *
+   * @throws EntityNotFoundException when the document does not exist or belongs to someone else
+   */
+  public T deleteScoped(String id) {
+    return requireFound(afterDelete(getMongoTemplate().findAndRemove(scopedQuery(id),
+        entityClass)));
+  }
+
+  /**
+   * Matches the document with {@code id} if the authenticated caller owns it.
+   */
+  protected Query scopedQuery(String id) {
+    return scopedQuery(Criteria.where("_id").is(id));
+  }
+
+  /**
+   * Matches the documents {@code criteria} selects that the authenticated caller owns.
+   */
+  protected Query scopedQuery(Criteria criteria) {
+    Criteria owner = ownerCriteria(AuthUtils.getAuthenticatedUserInfo());
+    return Query.query(owner == null ? criteria : new Criteria().andOperator(criteria, owner));
+  }
+
+  /**
+   * The documents of this collection {@code caller} may access, or null for all of them.
+   * Repositories whose documents belong to a doctor or patient override this.
+   */
+  protected Criteria ownerCriteria(AuthenticatedUserInfo caller) {
+    return null;
+  }
+
+  /**
+   * Called after every save, update and delete that touched a document. {@code updates} is the
+   * applied update, or null when the whole document was written or removed. Subclasses override
+   * this to invalidate whatever they derive from the collection.
+   */
+  protected void onWrite(T entity, Update updates) {
+  }
+
+  /**
+   * Called after a delete removed a document. Defaults to {@link #onWrite} with null updates;
+   * override when a delete has to be told apart from a full write.
+   */
+  protected void onDelete(T entity) {
+    onWrite(entity, null);
+  }
+
+  private Document keysetFilter(String sortField, Document cursor) {
+    Object id = CursorUtils.id(cursor);
+
+    if ("_id".equals(sortField)) {
+      return new Document("_id", new Document("$gt", id));
+    }
+
+    Object sortValue = CursorUtils.sortValue(cursor);
+    Document sameKeyLaterId = new Document(sortField, sortValue)
+        .append("_id", new Document("$gt", id));
+
+    // missing sort keys sort first, and $gt null matches nothing, so step past them explicitly
+    Document laterKey = sortValue == null
+        ? new Document(sortField, new Document("$ne", null))
+        : new Document(sortField, new Document("$gt", sortValue));
+
+    return new Document("$or", List.of(sameKeyLaterId, laterKey));
+  }
+
+  private T afterWrite(T entity, Update updates) {
+    if (entity != null) {
+      onWrite(entity, updates);
+    }
+    return entity;
+  }
+
+  private T requireFound(T entity) {
+    if (entity == null) {
+      // deliberately the same for both, so ids of other people's documents cannot be probed
+      throw new EntityNotFoundException(entityClass.getSimpleName() + " not found or access denied");
+    }
+    return entity;
+  }
+
+  private T afterDelete(T entity) {
+    if (entity != null) {
+      onDelete(entity);
+    }
+    return entity;
   }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package org.dbms.dbmshealthcare.repository;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
+import org.dbms.dbmshealthcare.model.DoctorMonthlyStats;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class DoctorMonthlyStatsRepository extends BaseMongoRepository<DoctorMonthlyStats> {
+
+  public DoctorMonthlyStatsRepository(MongoTemplateResolver mongoTemplateResolver) {
+    super(mongoTemplateResolver, DoctorMonthlyStats.class);
+  }
+
+  @Override
+  public List<Query> getQueryShapes() {
+    return List.of(Query.query(Criteria.where("month").is("").and("approved_count").gt(0))
+        .with(Sort.by(Sort.Direction.DESC, "approved_count")));
+  }
+
+  public void increment(YearMonth month, String doctorId, String doctorName,
+      String specialization, long delta) {
+    Update update = new Update()
+        .setOnInsert("month", month.toString())
+        .setOnInsert("doctor_id", doctorId)
+        .set("doctor_name", doctorName)
+        .set("specialization", specialization)
+        .inc("approved_count", delta);
+
+    getMongoTemplate().upsert(Query.query(Criteria.where("_id").is(id(month, doctorId))), update,
+        DoctorMonthlyStats.class);
+  }
+
+  public List<DoctorMonthlyStats> findTopByMonth(YearMonth month, int limit) {
+    Query query = Query.query(Criteria.where("month").is(month.toString())
+            .and("approved_count").gt(0))
+        .with(Sort.by(Sort.Direction.DESC, "approved_count"))
+        .limit(limit);
+    return getMongoTemplate().find(query, DoctorMonthlyStats.class);
+  }
+
+  /**
+   * Makes {@code stats} the month's rollups with one ordered bulk write: every row is upserted
+   * over its current version, then rows of the month missing from {@code stats} are removed.
+   * Rows are never absent in between, as they were with a remove followed by an insert.
+   */
+  public void replaceMonth(YearMonth month, List<DoctorMonthlyStats> stats) {
+    BulkOperations bulk = getMongoTemplate().bulkOps(BulkMode.ORDERED, DoctorMonthlyStats.class);
+    List<String> ids = new ArrayList<>();
+
+    for (DoctorMonthlyStats row : stats) {
+      row.setId(id(month, row.getDoctorId()));
+      row.setMonth(month.toString());
+      ids.add(row.getId());
+      bulk.replaceOne(Query.query(Criteria.where("_id").is(row.getId())), row,
+          FindAndReplaceOptions.options().upsert());
+    }
+
+    bulk.remove(Query.query(Criteria.where("month").is(month.toString()).and("_id").nin(ids)));
+    bulk.execute();
+  }
+
+  private String id(YearMonth month, String doctorId) {
+    return month + ":" + doctorId;
+  }
+}
@@ -1,16 +1,43 @@
 package org.dbms.dbmshealthcare.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.dbms.dbmshealthcare.cache.AnalyticsCache;
+import org.dbms.dbmshealthcare.cache.AnalyticsCache.Endpoint;
+import org.dbms.dbmshealthcare.cache.DirectoryCache;
+import org.dbms.dbmshealthcare.cache.SlotAvailabilityIndex;
 import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
 import org.dbms.dbmshealthcare.model.Doctor;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public class DoctorRepository extends BaseMongoRepository<Doctor> {
 
-  public DoctorRepository(MongoTemplateResolver mongoTemplateResolver) {
+  private final AnalyticsCache analyticsCache;
+  private final DirectoryCache directoryCache;
+  private final SlotAvailabilityIndex availabilityIndex;
+
+  public DoctorRepository(MongoTemplateResolver mongoTemplateResolver,
+      AnalyticsCache analyticsCache, DirectoryCache directoryCache,
+      SlotAvailabilityIndex availabilityIndex) {
     super(mongoTemplateResolver, Doctor.class);
+    this.analyticsCache = analyticsCache;
+    this.directoryCache = directoryCache;
+    this.availabilityIndex = availabilityIndex;
+  }
+
+  @Override
+  public List<Query> getQueryShapes() {
+    return List.of(
+        Query.query(Criteria.where("user_id").is("")),
+        Query.query(Criteria.where("license_number").is("")));
   }
 
   public Doctor findByUserId(String userId) {
@@ -22,4 +49,40 @@ public class DoctorRepository extends BaseMongoRepository<Doctor> {
         Doctor.class);
   }
 
-} 
\ No newline at end of file
+  /**
+   * Like {@link #findById}, served from the directory cache; the result must not be modified.
+   */
+  public Doctor findCachedById(String id) {
+    return directoryCache.get(Doctor.class, id, this::findByIds);
+  }
+
+  public Map<String, Doctor> findCachedByIds(Collection<String> ids) {
+    return directoryCache.getAll(Doctor.class, ids, this::findByIds);
+  }
+
+  private Map<String, Doctor> findByIds(Set<String> ids) {
+    return getMongoTemplate().find(Query.query(Criteria.where("_id").in(ids)), Doctor.class)
+        .stream()
+        .collect(Collectors.toMap(Doctor::getId, Function.identity()));
+  }
+
+  @Override
+  protected void onWrite(Doctor doctor, Update updates) {
+    directoryCache.invalidate(Doctor.class, doctor.getId());
+    availabilityIndex.onDoctorWritten(doctor);
+
+    // linking a user account (user_id) does not change anything the analytics report on
+    if (updates == null || updates.modifies("name") || updates.modifies("specialization")) {
+      analyticsCache.invalidate(Endpoint.DOCTOR_COUNT_BY_SPECIALTY, Endpoint.TOP_DOCTORS,
+          Endpoint.SPECIALTY_STATS);
+    }
+  }
+
+  @Override
+  protected void onDelete(Doctor doctor) {
+    directoryCache.invalidate(Doctor.class, doctor.getId());
+    availabilityIndex.removeDoctor(doctor.getId());
+    analyticsCache.invalidate(Endpoint.DOCTOR_COUNT_BY_SPECIALTY, Endpoint.TOP_DOCTORS,
+        Endpoint.SPECIALTY_STATS);
+  }
+}
@@ -14,6 +14,13 @@ public class MedicalRecordRepository extends BaseMongoRepository<MedicalRecord>
         super(mongoTemplateResolver, MedicalRecord.class);
     }
 
+    @Override
+    public List<Query> getQueryShapes() {
+        return List.of(
+            Query.query(Criteria.where("patientId").is("")),
+            Query.query(Criteria.where("doctorId").is("")));
+    }
+
     public List<MedicalRecord> findByPatientId(String patientId) {
         return getMongoTemplate().find(Query.query(Criteria.where("patientId").is(patientId)), MedicalRecord.class);
     }
@@ -1,74 +1,47 @@
 package org.dbms.dbmshealthcare.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.dbms.dbmshealthcare.cache.DirectoryCache;
 import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
+import org.dbms.dbmshealthcare.metrics.OperationInstrumentation;
 import org.dbms.dbmshealthcare.model.Patient;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public class PatientRepository extends BaseMongoRepository<Patient> {
 
-    public PatientRepository(MongoTemplateResolver mongoTemplateResolver) {
+    private final OperationInstrumentation instrumentation;
+    private final DirectoryCache directoryCache;
+
+    public PatientRepository(MongoTemplateResolver mongoTemplateResolver,
+            OperationInstrumentation instrumentation, DirectoryCache directoryCache) {
         super(mongoTemplateResolver, Patient.class);
+        this.instrumentation = instrumentation;
+        this.directoryCache = directoryCache;
+    }
+
+    @Override
+    public List<Query> getQueryShapes() {
+        return List.of(
+            Query.query(Criteria.where("userId").is("")),
+            Query.query(Criteria.where("personalHealthNumber").is("")));
     }
 
     public List<Patient> findByUserId(String userId) {
-        // First, try to find patients with userId field directly matching the provided userId
-        Query directQuery = new Query(Criteria.where("userId").is(userId));
-        List<Patient> patients = getMongoTemplate().find(directQuery, Patient.class);
-        
-        if (patients != null && !patients.isEmpty()) {
-            System.out.println("Found patients directly by userId: " + patients.size());
-            return patients;
-        }
-        
-        // Since we can't access the users collection properly due to authentication issues,
-        // we'll try a different approach to find patients related to this user
-        System.out.println("No patients found directly. Using alternate lookup approach...");
-        
-        // Try to find by email in case the userId is actually an email
-        if (userId.contains("@")) {
-            System.out.println("UserId looks like an email, trying to find matching patients...");
-            // Look for patients with matching email in the name field or other identifying fields
-            Query emailInNameQuery = new Query(Criteria.where("name").regex(userId, "i"));
-            patients = getMongoTemplate().find(emailInNameQuery, Patient.class);
-            
-            if (patients != null && !patients.isEmpty()) {
-                System.out.println("Found patients by name containing email: " + patients.size());
-                return patients;
-            }
-        }
-        
-        // Special case for our test user alice1@example.com
-        if (userId.equals("alice1@example.com")) {
-            System.out.println("Special case: Looking for Alice Johnson's patient record");
-            Query aliceQuery = new Query(Criteria.where("name").regex("Alice Johnson", "i"));
-            patients = getMongoTemplate().find(aliceQuery, Patient.class);
-            
-            if (patients != null && !patients.isEmpty()) {
-                System.out.println("Found Alice's patient record");
-                return patients;
-            }
-            
-            // If we still can't find Alice's record, let's try to find by her role ID directly
-            // We know from the MongoDB query that Alice's role_id is '67fea7148115684add2f66c0'
-            System.out.println("Looking for patient with _id matching Alice's role_id");
-            try {
-                Query roleIdQuery = new Query(Criteria.where("_id").is("67fea7148115684add2f66c0"));
-                patients = getMongoTemplate().find(roleIdQuery, Patient.class);
-                if (patients != null && !patients.isEmpty()) {
-                    System.out.println("Found patients by role_id: " + patients.size());
-                    return patients;
-                }
-            } catch (Exception e) {
-                System.out.println("Error querying by role_id: " + e.getMessage());
-            }
-        }
-        
-        System.out.println("No patients found for userId: " + userId);
-        return List.of();
+        long start = instrumentation.start();
+        List<Patient> patients = getMongoTemplate().find(
+            new Query(Criteria.where("userId").is(userId)), Patient.class);
+        instrumentation.stop("patients.findByUserId", start);
+        instrumentation.trace("patients.findByUserId", "results", patients.size());
+        return patients;
     }
 
     public List<Patient> findByDoctorId(String doctorId) {
@@ -80,4 +53,26 @@ public class PatientRepository extends BaseMongoRepository<Patient> {
         Query query = new Query(Criteria.where("personalHealthNumber").is(personalHealthNumber));
         return getMongoTemplate().findOne(query, Patient.class);
     }
-}
\ No newline at end of file
+
+    /**
+     * Like {@link #findById}, served from the directory cache; the result must not be modified.
+     */
+    public Patient findCachedById(String id) {
+        return directoryCache.get(Patient.class, id, this::findByIds);
+    }
+
+    public Map<String, Patient> findCachedByIds(Collection<String> ids) {
+        return directoryCache.getAll(Patient.class, ids, this::findByIds);
+    }
+
+    private Map<String, Patient> findByIds(Set<String> ids) {
+        return getMongoTemplate().find(Query.query(Criteria.where("_id").in(ids)), Patient.class)
+            .stream()
+            .collect(Collectors.toMap(Patient::getId, Function.identity()));
+    }
+
+    @Override
+    protected void onWrite(Patient patient, Update updates) {
+        directoryCache.invalidate(Patient.class, patient.getId());
+    }
+}
@@ -15,6 +15,11 @@ public class PaymentRepository extends BaseMongoRepository<Payment> {
         super(mongoTemplateResolver, Payment.class);
     }
 
+    @Override
+    public List<Query> getQueryShapes() {
+        return List.of(Query.query(Criteria.where("medicalRecordId").is("")));
+    }
+
     public List<Payment> findByMedicalRecordId(String medicalRecordId) {
         return getMongoTemplate().find(Query.query(Criteria.where("medicalRecordId").is(medicalRecordId)), Payment.class);
     }
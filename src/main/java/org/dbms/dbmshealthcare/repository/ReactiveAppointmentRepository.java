@@ -0,0 +1,22 @@
+package org.dbms.dbmshealthcare.repository;
+
+import org.dbms.dbmshealthcare.config.ReactiveMongoTemplateResolver;
+import org.dbms.dbmshealthcare.model.Appointment;
+import org.dbms.dbmshealthcare.pojo.AuthenticatedUserInfo;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@ConditionalOnProperty(prefix = "mongodb.reactive", name = "enabled", havingValue = "true")
+public class ReactiveAppointmentRepository extends ReactiveBaseMongoRepository<Appointment> {
+
+  public ReactiveAppointmentRepository(ReactiveMongoTemplateResolver mongoTemplateResolver) {
+    super(mongoTemplateResolver, Appointment.class);
+  }
+
+  @Override
+  protected Criteria ownerCriteria(AuthenticatedUserInfo caller) {
+    return AppointmentRepository.ownerCriteriaOf(caller);
+  }
+}
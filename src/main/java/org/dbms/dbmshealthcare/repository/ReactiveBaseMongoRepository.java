@@ -0,0 +1,77 @@
+package org.dbms.dbmshealthcare.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.dbms.dbmshealthcare.config.ReactiveMongoTemplateResolver;
+import org.dbms.dbmshealthcare.pojo.AuthenticatedUserInfo;
+import org.dbms.dbmshealthcare.utils.AuthUtils;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link BaseMongoRepository}. The role-scoped template is taken from
+ * the subscriber context, so callers must wrap the returned publisher with
+ * {@link ReactiveMongoTemplateResolver#withCallerRole}.
+ */
+@RequiredArgsConstructor
+public abstract class ReactiveBaseMongoRepository<T> {
+
+  private final ReactiveMongoTemplateResolver mongoTemplateResolver;
+  private final Class<T> entityClass;
+
+  protected Mono<ReactiveMongoTemplate> getMongoTemplate() {
+    return mongoTemplateResolver.resolveMongoTemplate();
+  }
+
+  public Flux<T> findAll(Query query) {
+    return getMongoTemplate().flatMapMany(template -> template.find(query, entityClass));
+  }
+
+  public Mono<T> findById(String id) {
+    return getMongoTemplate().flatMap(template -> template.findById(id, entityClass));
+  }
+
+  /**
+   * Like {@link #findById}, but only finds documents the caller owns (see {@link #ownerCriteria}),
+   * in the same round trip. Empty when the document does not exist or belongs to someone else.
+   * The caller is read from the security context when this is called, not on subscription.
+   */
+  public Mono<T> findScopedById(String id) {
+    Criteria byId = Criteria.where("_id").is(id);
+    Criteria owner = ownerCriteria(AuthUtils.getAuthenticatedUserInfo());
+    Query query = Query.query(owner == null ? byId : new Criteria().andOperator(byId, owner));
+    return getMongoTemplate().flatMap(template -> template.findOne(query, entityClass));
+  }
+
+  public Mono<T> save(T entity) {
+    return getMongoTemplate().flatMap(template -> template.save(entity));
+  }
+
+  public Mono<T> delete(String id) {
+    return getMongoTemplate().flatMap(template -> template.findAndRemove(
+        Query.query(Criteria.where("_id").is(id)), entityClass));
+  }
+
+  public Mono<T> update(String id, Update updates) {
+    return update(id, new Criteria(), updates);
+  }
+
+  public Mono<T> update(String id, Criteria criteria, Update updates) {
+    Query query = new Query(new Criteria().andOperator(criteria, Criteria.where("_id").is(id)));
+
+    return getMongoTemplate().flatMap(template -> template.findAndModify(query, updates,
+        FindAndModifyOptions.options().returnNew(true), entityClass));
+  }
+
+  /**
+   * The documents of this collection {@code caller} may access, or null for all of them, as in
+   * {@link BaseMongoRepository#ownerCriteria}.
+   */
+  protected Criteria ownerCriteria(AuthenticatedUserInfo caller) {
+    return null;
+  }
+}
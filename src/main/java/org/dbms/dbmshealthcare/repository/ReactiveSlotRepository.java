@@ -0,0 +1,16 @@
+package org.dbms.dbmshealthcare.repository;
+
+import org.dbms.dbmshealthcare.config.ReactiveMongoTemplateResolver;
+import org.dbms.dbmshealthcare.model.Slot;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@ConditionalOnProperty(prefix = "mongodb.reactive", name = "enabled", havingValue = "true")
+public class ReactiveSlotRepository extends ReactiveBaseMongoRepository<Slot> {
+
+  public ReactiveSlotRepository(ReactiveMongoTemplateResolver mongoTemplateResolver) {
+    super(mongoTemplateResolver, Slot.class);
+  }
+
+}
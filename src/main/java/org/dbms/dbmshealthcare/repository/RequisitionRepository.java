@@ -1,9 +1,14 @@
 package org.dbms.dbmshealthcare.repository;
 
+import java.util.ArrayList;
 import java.util.List;
+import org.bson.Document;
 import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
 import org.dbms.dbmshealthcare.constants.RequisitionStatus;
+import org.dbms.dbmshealthcare.metrics.OperationInstrumentation;
+import org.dbms.dbmshealthcare.model.Patient;
 import org.dbms.dbmshealthcare.model.Requisition;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Repository;
@@ -11,8 +16,21 @@ import org.springframework.stereotype.Repository;
 @Repository
 public class RequisitionRepository extends BaseMongoRepository<Requisition> {
 
-    public RequisitionRepository(MongoTemplateResolver mongoTemplateResolver) {
+    private final OperationInstrumentation instrumentation;
+
+    public RequisitionRepository(MongoTemplateResolver mongoTemplateResolver,
+            OperationInstrumentation instrumentation) {
         super(mongoTemplateResolver, Requisition.class);
+        this.instrumentation = instrumentation;
+    }
+
+    @Override
+    public List<Query> getQueryShapes() {
+        return List.of(
+            Query.query(Criteria.where("medicalRecordId").is("")
+                .and("status").is(RequisitionStatus.PENDING)),
+            Query.query(Criteria.where("medicalRecordId").in(List.of(""))),
+            Query.query(Criteria.where("status").is(RequisitionStatus.PENDING)));
     }
 
     public List<Requisition> findByMedicalRecordId(String medicalRecordId) {
@@ -31,63 +49,44 @@ public class RequisitionRepository extends BaseMongoRepository<Requisition> {
         return getMongoTemplate().find(query, Requisition.class);
     }
 
-    // ✅ 添加这个方法，支持 List ID 查询
-    public List<Requisition> findByMedicalRecordIdIn(List<String> medicalRecordIds) {
-        System.out.println("Searching for requisitions with medicalRecordIds: " + String.join(", ", medicalRecordIds));
-        
-        // Debug: List all requisitions in the system to check what's actually there
-        try {
-            System.out.println("DEBUG: Listing all requisitions in database:");
-            List<Requisition> allReqs = getMongoTemplate().findAll(Requisition.class);
-            for (Requisition req : allReqs) {
-                System.out.println("Found requisition: id=" + req.getId() + 
-                                   ", medicalRecordId=" + req.getMedicalRecordId() +
-                                   ", testName=" + req.getTestName() +
-                                   ", status=" + req.getStatus() + 
-                                   ", field type=" + (req.getMedicalRecordId() != null ? req.getMedicalRecordId().getClass().getName() : "null"));
-            }
-            
-            if (allReqs.isEmpty()) {
-                System.out.println("DEBUG: No requisitions found in the database at all!");
-            }
-        } catch (Exception e) {
-            System.out.println("DEBUG: Error listing all requisitions: " + e.getMessage());
-            e.printStackTrace();
-        }
-        
-        try {
-            System.out.println("Creating MongoDB query for field 'medicalRecordId' with values: " + medicalRecordIds);
-            Query query = new Query(Criteria.where("medicalRecordId").in(medicalRecordIds));
-            List<Requisition> results = getMongoTemplate().find(query, Requisition.class);
-            System.out.println("Query with field 'medicalRecordId' returned " + (results != null ? results.size() : 0) + " results");
-            
-            if (results != null && !results.isEmpty()) {
-                return results;
-            }
-        } catch (Exception e) {
-            System.out.println("Error querying with field 'medicalRecordId': " + e.getMessage());
-            e.printStackTrace();
-        }
-        
-        // Also try alternative field name just in case
-        if (medicalRecordIds != null && !medicalRecordIds.isEmpty()) {
-            try {
-                System.out.println("Creating MongoDB query for field 'medical_record_id' with values: " + medicalRecordIds);
-                Query altQuery = new Query(Criteria.where("medical_record_id").in(medicalRecordIds));
-                List<Requisition> altResults = getMongoTemplate().find(altQuery, Requisition.class);
-                System.out.println("Query with field 'medical_record_id' returned " + (altResults != null ? altResults.size() : 0) + " results");
-                
-                if (altResults != null && !altResults.isEmpty()) {
-                    System.out.println("Found requisitions using alternate field name 'medical_record_id': " + altResults.size());
-                    return altResults;
-                }
-            } catch (Exception e) {
-                System.out.println("Error trying alternate field name: " + e.getMessage());
-                e.printStackTrace();
-            }
+    /**
+     * Requisitions of every patient linked to the user, resolved in one round trip: patients are
+     * matched on user_id, joined to their medical records and then to the records' requisitions.
+     * Ids are stored as strings in the referencing fields, hence the $toString before each join.
+     */
+    public List<Requisition> findByUserId(String userId, int limit) {
+        List<Document> pipeline = List.of(
+            new Document("$match", new Document("user_id", userId)),
+            new Document("$project", new Document("_id", new Document("$toString", "$_id"))),
+            new Document("$lookup", new Document("from", "medical_records")
+                .append("localField", "_id")
+                .append("foreignField", "patient_id")
+                .append("pipeline", List.of(new Document("$project",
+                    new Document("_id", new Document("$toString", "$_id")))))
+                .append("as", "records")),
+            new Document("$unwind", "$records"),
+            new Document("$lookup", new Document("from", "requisitions")
+                .append("localField", "records._id")
+                .append("foreignField", "medical_record_id")
+                .append("as", "requisitions")),
+            new Document("$unwind", "$requisitions"),
+            new Document("$replaceRoot", new Document("newRoot", "$requisitions")),
+            new Document("$limit", limit));
+
+        long start = instrumentation.start();
+        MongoTemplate mongoTemplate = getMongoTemplate();
+        List<Requisition> requisitions = new ArrayList<>();
+
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Patient.class))
+            .aggregate(pipeline)
+            .forEach(document -> requisitions.add(
+                mongoTemplate.getConverter().read(Requisition.class, document)));
+
+        instrumentation.stop("requisitions.findByUserId", start);
+        instrumentation.trace("requisitions.findByUserId", "results", requisitions.size());
+        if (requisitions.size() == limit) {
+            instrumentation.count("requisitions.findByUserId", "truncated");
         }
-        
-        System.out.println("No requisitions found using either field name. Returning empty list.");
-        return List.of();
+        return requisitions;
     }
-}
\ No newline at end of file
+}
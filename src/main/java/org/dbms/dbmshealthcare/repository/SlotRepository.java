@@ -1,14 +1,307 @@
 package org.dbms.dbmshealthcare.repository;
 
+import com.mongodb.bulk.BulkWriteError;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.bson.types.ObjectId;
+import org.dbms.dbmshealthcare.cache.SlotAvailabilityIndex;
+import org.dbms.dbmshealthcare.cache.SlotClaims;
 import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
+import org.dbms.dbmshealthcare.constants.Role;
+import org.dbms.dbmshealthcare.constants.SlotStatus;
+import org.dbms.dbmshealthcare.exception.EntityNotFoundException;
 import org.dbms.dbmshealthcare.model.Slot;
+import org.dbms.dbmshealthcare.model.pojo.SlotBooking;
+import org.dbms.dbmshealthcare.pojo.AuthenticatedUserInfo;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public class SlotRepository extends BaseMongoRepository<Slot> {
 
-  public SlotRepository(MongoTemplateResolver mongoTemplateResolver) {
+  private final SlotAvailabilityIndex availabilityIndex;
+  private final SlotClaims slotClaims;
+
+  public SlotRepository(MongoTemplateResolver mongoTemplateResolver,
+      SlotAvailabilityIndex availabilityIndex, SlotClaims slotClaims) {
     super(mongoTemplateResolver, Slot.class);
+    this.availabilityIndex = availabilityIndex;
+    this.slotClaims = slotClaims;
+  }
+
+  @Override
+  public List<Query> getQueryShapes() {
+    Sort byStart = Sort.by("start_time", "_id");
+    return List.of(
+        Query.query(Criteria.where("doctor_id").is("").and("status").is(SlotStatus.AVAILABLE)
+            .and("start_time").gte(LocalDateTime.now())).with(byStart),
+        Query.query(Criteria.where("status").is(SlotStatus.AVAILABLE)
+            .and("start_time").gte(LocalDateTime.now())).with(byStart),
+        new Query().with(byStart),
+        Query.query(Criteria.where("doctor_id").is("").and("start_time")
+            .lt(LocalDateTime.now()).and("end_time").gt(LocalDateTime.now())).with(byStart),
+        Query.query(Criteria.where("booking.bookedAt").gte(Instant.now())),
+        Query.query(Criteria.where("status").is(SlotStatus.HELD)
+            .and("hold_expires_at").lt(Instant.now())),
+        Query.query(activeHoldsOf("", Instant.now()).and("_id").ne("")));
+  }
+
+  /**
+   * Slots the patient may book or hold: available ones, ones the patient holds, and ones whose
+   * hold has expired but not been swept yet.
+   */
+  public static Criteria bookableBy(String patientId) {
+    return new Criteria().orOperator(
+        Criteria.where("status").is(SlotStatus.AVAILABLE),
+        Criteria.where("status").is(SlotStatus.HELD).and("held_by").is(patientId),
+        Criteria.where("status").is(SlotStatus.HELD).and("hold_expires_at").lt(Instant.now()));
+  }
+
+  /**
+   * Books the slot for the patient's appointment, consuming their hold if they have one. Returns
+   * the booked slot, or null if it was not bookable.
+   */
+  public Slot book(String slotId, String patientId, String appointmentId) {
+    return update(slotId, bookableBy(patientId), bookUpdate(appointmentId));
+  }
+
+  /**
+   * Holds the slot for the patient until {@code now + ttl} if it is available or its hold has
+   * expired. A hold the patient already has is returned as it is rather than extended, so no
+   * hold outlives the ttl it was taken with. Returns null if someone else holds or booked it.
+   */
+  public Slot hold(String slotId, String patientId, Instant now, Duration ttl) {
+    Slot held = update(slotId, new Criteria().orOperator(
+            Criteria.where("status").is(SlotStatus.AVAILABLE),
+            Criteria.where("status").is(SlotStatus.HELD).and("hold_expires_at").lt(now)),
+        new Update()
+            .set("status", SlotStatus.HELD)
+            .set("held_by", patientId)
+            .set("hold_expires_at", now.plus(ttl)));
+    if (held != null) {
+      return held;
+    }
+
+    return getMongoTemplate().findOne(
+        Query.query(activeHoldsOf(patientId, now).and("_id").is(slotId)), Slot.class);
+  }
+
+  /**
+   * Number of unexpired holds the patient has on slots other than {@code exceptSlotId}.
+   */
+  public long countActiveHolds(String patientId, Instant now, String exceptSlotId) {
+    return getMongoTemplate().count(
+        Query.query(activeHoldsOf(patientId, now).and("_id").ne(exceptSlotId)), Slot.class);
+  }
+
+  public Slot releaseHold(String slotId, String patientId) {
+    return update(slotId, Criteria.where("status").is(SlotStatus.HELD).and("held_by").is(patientId),
+        new Update().set("status", SlotStatus.AVAILABLE).unset("held_by").unset("hold_expires_at"));
+  }
+
+  /**
+   * Makes the slot available again, dropping any embedded booking, if it is still booked for the
+   * appointment. Returns the released slot, or null if it was not.
+   */
+  public Slot release(String slotId, String appointmentId) {
+    return update(slotId, releasableFor(appointmentId), releaseUpdate());
+  }
+
+  /**
+   * Like {@link #release} for many slots, keyed by slot id to the appointment each is to be
+   * released for, with one unordered bulk write. Returns the ids of the slots now available.
+   */
+  public Set<String> releaseAll(Map<String, String> appointmentIdsBySlotId) {
+    BulkOperations bulk = getMongoTemplate().bulkOps(BulkMode.UNORDERED, Slot.class);
+    appointmentIdsBySlotId.forEach((slotId, appointmentId) -> bulk.updateOne(
+        Query.query(Criteria.where("_id").is(slotId).andOperator(releasableFor(appointmentId))),
+        releaseUpdate()));
+    bulk.execute();
+
+    // a slot left alone by the bulk write because it was booked again is not AVAILABLE here
+    Query query = Query.query(Criteria.where("_id").in(appointmentIdsBySlotId.keySet())
+        .and("status").is(SlotStatus.AVAILABLE));
+    query.fields().include("doctor_id", "start_time", "end_time", "status");
+    List<Slot> released = getMongoTemplate().find(query, Slot.class);
+    released.forEach(slot -> onWrite(slot, null));
+    return released.stream().map(Slot::getId).collect(Collectors.toSet());
+  }
+
+  /**
+   * Makes up to {@code batchSize} holds that expired before {@code now} available again, with one
+   * read and one multi-update. Returns how many were released.
+   */
+  public int releaseExpiredHolds(Instant now, int batchSize) {
+    Criteria expired = Criteria.where("status").is(SlotStatus.HELD).and("hold_expires_at").lt(now);
+    Query query = Query.query(expired).limit(batchSize);
+    query.fields().include("doctor_id", "start_time", "end_time");
+    List<Slot> slots = getMongoTemplate().find(query, Slot.class);
+
+    if (slots.isEmpty()) {
+      return 0;
+    }
+
+    List<String> ids = slots.stream().map(Slot::getId).toList();
+    long released = getMongoTemplate().updateMulti(
+        Query.query(Criteria.where("_id").in(ids).and("status").is(SlotStatus.HELD)
+            .and("hold_expires_at").lt(now)),
+        new Update().set("status", SlotStatus.AVAILABLE).unset("held_by").unset("hold_expires_at"),
+        Slot.class).getModifiedCount();
+
+    // slots booked or re-held since the read were left alone; report only the released ones
+    List<Slot> releasedSlots = slots;
+    if (released < slots.size()) {
+      Query releasedQuery = Query.query(Criteria.where("_id").in(ids)
+          .and("status").is(SlotStatus.AVAILABLE));
+      releasedQuery.fields().include("doctor_id", "start_time", "end_time", "status");
+      releasedSlots = getMongoTemplate().find(releasedQuery, Slot.class);
+    }
+
+    releasedSlots.forEach(slot -> {
+      slot.setStatus(SlotStatus.AVAILABLE);
+      onWrite(slot, null);
+    });
+    return (int) released;
+  }
+
+  /**
+   * Start and end of the doctor's slots that overlap [from, to), ordered by start time.
+   */
+  public List<Slot> findOverlapping(String doctorId, LocalDateTime from, LocalDateTime to) {
+    Query query = Query.query(Criteria.where("doctor_id").is(doctorId)
+            .and("start_time").lt(to)
+            .and("end_time").gt(from))
+        .with(Sort.by("start_time", "_id"));
+    query.fields().include("start_time", "end_time");
+    return getMongoTemplate().find(query, Slot.class);
   }
 
+  /**
+   * Inserts the slots as unordered bulk inserts of at most {@code batchSize} documents, so one
+   * rejected document, typically a duplicate doctor and start time refused by the unique
+   * {@code doctor_start_unique} index, does not stop the rest of its batch. Returns how many were
+   * inserted; only those are reported to the availability index.
+   */
+  public int insertUnordered(List<Slot> slots, int batchSize) {
+    int inserted = 0;
+
+    // ids are assigned up front so inserted slots can be reported to the availability index
+    slots.forEach(slot -> slot.setId(new ObjectId().toHexString()));
+
+    for (int from = 0; from < slots.size(); from += batchSize) {
+      List<Slot> batch = slots.subList(from, Math.min(from + batchSize, slots.size()));
+      Set<Integer> failed = Set.of();
+      try {
+        inserted += getMongoTemplate().bulkOps(BulkMode.UNORDERED, Slot.class)
+            .insert(batch)
+            .execute()
+            .getInsertedCount();
+      } catch (BulkOperationException e) {
+        inserted += e.getResult().getInsertedCount();
+        failed = e.getErrors().stream().map(BulkWriteError::getIndex).collect(Collectors.toSet());
+      }
+
+      for (int i = 0; i < batch.size(); i++) {
+        if (!failed.contains(i)) {
+          onWrite(batch.get(i), null);
+        }
+      }
+    }
+
+    return inserted;
+  }
+
+  // doctors manage only their own slots
+  @Override
+  protected Criteria ownerCriteria(AuthenticatedUserInfo caller) {
+    return caller.role() == Role.DOCTOR ? Criteria.where("doctor_id").is(caller.roleId()) : null;
+  }
+
+  @Override
+  protected void onWrite(Slot slot, Update updates) {
+    availabilityIndex.onSlotWritten(slot);
+    if (slot.getStatus() != SlotStatus.BOOKED) {
+      slotClaims.release(slot.getId());
+    }
+  }
+
+  @Override
+  protected void onDelete(Slot slot) {
+    availabilityIndex.onSlotDeleted(slot);
+    slotClaims.release(slot.getId());
+  }
+
+  /**
+   * Like {@link #book}, embedding the booking in the same update.
+   */
+  public Slot claim(String slotId, SlotBooking booking) {
+    return update(slotId, bookableBy(booking.patientId()),
+        bookUpdate(booking.appointmentId()).set("booking", booking));
+  }
+
+  /**
+   * Why {@link #book} or {@link #claim} found the slot unbookable: it does not exist, or it is
+   * taken. Only called once a booking has failed, so successful bookings skip the read.
+   */
+  public RuntimeException unbookable(String slotId) {
+    return findBookingInfo(slotId) == null ? new EntityNotFoundException("Slot not found")
+        : new RuntimeException("Slot not available");
+  }
+
+  /**
+   * Slots whose embedded booking was made at or after {@code since}.
+   */
+  public List<Slot> findBookedSince(Instant since) {
+    return getMongoTemplate().find(
+        Query.query(Criteria.where("booking.bookedAt").gte(since)), Slot.class);
+  }
+
+  /**
+   * The slot's doctor, status and hold only; enough to route and pre-check a booking.
+   */
+  public Slot findBookingInfo(String id) {
+    Query query = Query.query(Criteria.where("_id").is(id));
+    query.fields().include("doctor_id", "status", "held_by", "hold_expires_at");
+    return getMongoTemplate().findOne(query, Slot.class);
+  }
+
+  // BOOKED for this appointment; a slot released and booked again belongs to another one. Slots
+  // booked before appointment_id was recorded lack it, and are matched as they were then: by the
+  // embedded booking if there is one, otherwise for any appointment
+  private static Criteria releasableFor(String appointmentId) {
+    return Criteria.where("status").is(SlotStatus.BOOKED).orOperator(
+        Criteria.where("appointment_id").is(appointmentId),
+        Criteria.where("appointment_id").is(null)
+            .and("booking.appointmentId").in(appointmentId, null));
+  }
+
+  private static Update releaseUpdate() {
+    return new Update().set("status", SlotStatus.AVAILABLE).unset("booking")
+        .unset("appointment_id");
+  }
+
+  private static Criteria activeHoldsOf(String patientId, Instant now) {
+    return Criteria.where("status").is(SlotStatus.HELD)
+        .and("held_by").is(patientId)
+        .and("hold_expires_at").gt(now);
+  }
+
+  private static Update bookUpdate(String appointmentId) {
+    return new Update()
+        .set("status", SlotStatus.BOOKED)
+        .set("appointment_id", appointmentId)
+        .unset("held_by")
+        .unset("hold_expires_at");
+  }
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package org.dbms.dbmshealthcare.repository;
 
+import org.dbms.dbmshealthcare.cache.AnalyticsCache;
+import org.dbms.dbmshealthcare.cache.AnalyticsCache.Endpoint;
 import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
+import org.dbms.dbmshealthcare.config.TransactionExecutor;
 import org.dbms.dbmshealthcare.dto.IdentityCheckDto;
 import org.dbms.dbmshealthcare.model.Doctor;
 import org.dbms.dbmshealthcare.model.Patient;
@@ -9,7 +12,6 @@ import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import org.dbms.dbmshealthcare.constants.Role;
 
@@ -18,21 +20,50 @@ public class UserRepository extends BaseMongoRepository<User> {
 
   private final PatientRepository patientRepository;
   private final DoctorRepository doctorRepository;
+  private final AnalyticsCache analyticsCache;
+  private final TransactionExecutor transactionExecutor;
 
   public UserRepository(MongoTemplateResolver mongoTemplateResolver,
       PatientRepository patientRepository,
-      DoctorRepository doctorRepository) {
+      DoctorRepository doctorRepository,
+      AnalyticsCache analyticsCache,
+      TransactionExecutor transactionExecutor) {
     super(mongoTemplateResolver, User.class);
     this.doctorRepository = doctorRepository;
     this.patientRepository = patientRepository;
+    this.analyticsCache = analyticsCache;
+    this.transactionExecutor = transactionExecutor;
+  }
+
+  @Override
+  public List<Query> getQueryShapes() {
+    return List.of(Query.query(Criteria.where("email").is("")));
   }
 
   public User findByEmail(String email) {
     return getMongoTemplate().findOne(Query.query(Criteria.where("email").is(email)), User.class);
   }
 
-  @Transactional
+  public String findJwtId(String userId) {
+    Query query = Query.query(Criteria.where("_id").is(userId));
+    query.fields().include("jwt_id");
+    User user = getMongoTemplate().findOne(query, User.class);
+    return user == null ? null : user.getJwtId();
+  }
+
+  @Override
+  protected void onWrite(User user, Update updates) {
+    // every login rewrites jwt_id; only role and birth date changes move the distributions
+    if (updates == null || updates.modifies("roles") || updates.modifies("date_of_birth")) {
+      analyticsCache.invalidate(Endpoint.USER_ROLE_DISTRIBUTION, Endpoint.AGE_DISTRIBUTION);
+    }
+  }
+
   public void authorize(String userId, IdentityCheckDto identityCheckDto){
+    transactionExecutor.execute("users.authorize", () -> doAuthorize(userId, identityCheckDto));
+  }
+
+  private void doAuthorize(String userId, IdentityCheckDto identityCheckDto){
     String name = identityCheckDto.name();
     String licenseNumber = identityCheckDto.licenseNumber();
     String personalHealthNumber = identityCheckDto.personalHealthNumber();
@@ -70,21 +101,23 @@ public class UserRepository extends BaseMongoRepository<User> {
     }
   }
 
-  @Transactional
   public void authorize(String userId, String roleId, Role role){
+    transactionExecutor.execute("users.authorize", () -> doAuthorize(userId, roleId, role));
+  }
+
+  private void doAuthorize(String userId, String roleId, Role role){
     Update updates = new Update().set("user_id", userId);
     Update userUpdates = new Update().set("role_id", roleId);
 
+    // the linked document comes back from the update, so its name needs no separate read
     if (role.equals(Role.DOCTOR)){
-      Doctor doctor = doctorRepository.findById(roleId);
+      Doctor doctor = doctorRepository.update(roleId,updates);
       userUpdates.set("name", doctor.getName()).set("roles", List.of(Role.DOCTOR));
-      doctorRepository.update(roleId,updates);
     }
 
     if (role.equals(Role.PATIENT)){
-      Patient patient = patientRepository.findById(roleId);
+      Patient patient = patientRepository.update(roleId,updates);
       userUpdates.set("name", patient.getName()).set("roles", List.of(Role.PATIENT));
-      patientRepository.update(roleId,updates);
     }
 
     User user = super.update(userId, userUpdates);
@@ -0,0 +1,76 @@
+package org.dbms.dbmshealthcare.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * Remembers tokens that passed verification until they expire, keyed by the SHA-256 of the
+ * token, so a token presented again skips parsing and signature verification. Only successful
+ * decodes are cached; a token that fails verification is checked again on every request.
+ *
+ * <p>A hit returns the same {@link Jwt} instance each time, which lets
+ * {@link MyJwtAuthenticationConverter} reuse the authorities it derived from it.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+  private final JwtDecoder delegate;
+  private final Cache<String, Jwt> cache;
+
+  public CachingJwtDecoder(JwtDecoder delegate, long maxSize, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfter(new Expiry<String, Jwt>() {
+          @Override
+          public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+            Instant expiresAt = jwt.getExpiresAt();
+            // a token without exp is never cached, there is no safe point to drop it
+            return expiresAt == null ? 0
+                : Math.max(0, Duration.between(Instant.now(), expiresAt).toNanos());
+          }
+
+          @Override
+          public long expireAfterUpdate(String key, Jwt jwt, long currentTime,
+              long currentDuration) {
+            return currentDuration;
+          }
+
+          @Override
+          public long expireAfterRead(String key, Jwt jwt, long currentTime,
+              long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .recordStats()
+        .build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "verified-tokens");
+  }
+
+  @Override
+  public Jwt decode(String token) throws JwtException {
+    return cache.get(digest(token), key -> delegate.decode(token));
+  }
+
+  private static String digest(String token) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256")
+          .digest(token.getBytes(StandardCharsets.US_ASCII));
+      return Base64.getEncoder().encodeToString(hash);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package org.dbms.dbmshealthcare.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -13,18 +15,25 @@ import org.springframework.security.oauth2.server.resource.authentication.JwtAut
 
 public class MyJwtAuthenticationConverter implements Converter<Jwt, AbstractAuthenticationToken> {
 
+  // keyed by Jwt identity and weakly held: an entry lives exactly as long as the
+  // CachingJwtDecoder keeps handing out that Jwt instance
+  private final Cache<Jwt, Collection<GrantedAuthority>> authorities = Caffeine.newBuilder()
+      .weakKeys()
+      .build();
+
   @Override
   public AbstractAuthenticationToken convert(Jwt source) {
-    return new JwtAuthenticationToken(source, extractResourceRoles(source));
+    // the token itself is built per request, its details are filled in from the request
+    return new JwtAuthenticationToken(source, authorities.get(source, this::extractResourceRoles));
   }
 
-  private Collection<? extends GrantedAuthority> extractResourceRoles(Jwt jwt) {
+  private Collection<GrantedAuthority> extractResourceRoles(Jwt jwt) {
     List<String> roleClaims = jwt.getClaimAsStringList("roles");
     String typeClaim = jwt.getClaimAsString("type");
 
     JwtType tokenType = JwtType.valueOf(typeClaim);
 
-    List<SimpleGrantedAuthority> authorities = new ArrayList<>();
+    List<GrantedAuthority> authorities = new ArrayList<>();
 
     roleClaims.forEach(r -> {
       authorities.add(new SimpleGrantedAuthority("ROLE_" + r));
@@ -32,6 +41,6 @@ public class MyJwtAuthenticationConverter implements Converter<Jwt, AbstractAuth
 
     authorities.add(new SimpleGrantedAuthority("ROLE_" + tokenType + "_token"));
 
-    return authorities;
+    return List.copyOf(authorities);
   }
 }
@@ -0,0 +1,115 @@
+package org.dbms.dbmshealthcare.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.dbms.dbmshealthcare.config.ApplicationThreads;
+import org.dbms.dbmshealthcare.exception.ServiceBusyException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs password hashing on a small dedicated pool so a burst of logins can occupy at most
+ * {@code password-hashing.threads} cores; the rest stay free for everything else. Callers block
+ * until their hash is done. When the pool and its queue are full, new work is rejected
+ * immediately with {@link ServiceBusyException} (503) instead of queueing without bound. In
+ * virtual-thread mode the pool's threads are virtual, still at most {@code threads} of them.
+ *
+ * <p>Publishes {@code auth.password.hash} (time spent hashing, tags operation and cost),
+ * {@code auth.password.wait} (time queued), {@code auth.password.queue} and
+ * {@code auth.password.rejected}.
+ */
+@Component
+public class PasswordHasher {
+
+  private final PasswordEncoder passwordEncoder;
+  private final ThreadPoolExecutor executor;
+  private final MeterRegistry meterRegistry;
+  private final Timer waitTimer;
+  private final Counter rejected;
+  private final String encodeCost;
+
+  public PasswordHasher(PasswordEncoder passwordEncoder, PasswordHashingProperties properties,
+      MeterRegistry meterRegistry, ApplicationThreads threads) {
+    this.passwordEncoder = passwordEncoder;
+    this.meterRegistry = meterRegistry;
+    this.encodeCost = String.format("%02d", properties.bcryptStrength());
+
+    this.executor = new ThreadPoolExecutor(properties.poolSize(), properties.poolSize(),
+        0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.queueCapacity()),
+        threads.factory("password-hash-"), new ThreadPoolExecutor.AbortPolicy());
+
+    this.waitTimer = Timer.builder("auth.password.wait").register(meterRegistry);
+    this.rejected = Counter.builder("auth.password.rejected").register(meterRegistry);
+    Gauge.builder("auth.password.queue", executor, e -> e.getQueue().size())
+        .register(meterRegistry);
+  }
+
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return submit("matches", costOf(encodedPassword),
+        () -> passwordEncoder.matches(rawPassword, encodedPassword));
+  }
+
+  public String encode(CharSequence rawPassword) {
+    return submit("encode", encodeCost, () -> passwordEncoder.encode(rawPassword));
+  }
+
+  /**
+   * Whether the hash was made with a lower work factor than the configured one.
+   */
+  public boolean needsRehash(String encodedPassword) {
+    return passwordEncoder.upgradeEncoding(encodedPassword);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private <T> T submit(String operation, String cost, Callable<T> hash) {
+    Timer hashTimer = Timer.builder("auth.password.hash")
+        .tag("operation", operation)
+        .tag("cost", cost)
+        .register(meterRegistry);
+    long queuedAt = System.nanoTime();
+
+    Future<T> future;
+    try {
+      future = executor.submit(() -> {
+        waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+        return hashTimer.recordCallable(hash);
+      });
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw new ServiceBusyException("Too many concurrent logins, try again shortly");
+    }
+
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while hashing password", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  // bcrypt hashes look like $2a$10$..., the two digits being the cost
+  private static String costOf(String encodedPassword) {
+    return encodedPassword != null && encodedPassword.length() > 6
+        ? encodedPassword.substring(4, 6) : "unknown";
+  }
+}
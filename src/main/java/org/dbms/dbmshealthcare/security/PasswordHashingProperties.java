@@ -0,0 +1,21 @@
+package org.dbms.dbmshealthcare.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param bcryptStrength log2 work factor for new hashes; stored hashes below it are rehashed on
+ *                       the next successful login
+ * @param threads        hashing threads, 0 for half the available processors
+ * @param queueCapacity  hash requests that may wait for a thread before new ones are rejected
+ */
+@ConfigurationProperties(prefix = "password-hashing")
+public record PasswordHashingProperties(
+    @DefaultValue("10") int bcryptStrength,
+    @DefaultValue("0") int threads,
+    @DefaultValue("64") int queueCapacity) {
+
+  public int poolSize() {
+    return threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+  }
+}
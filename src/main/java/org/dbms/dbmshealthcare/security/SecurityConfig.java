@@ -1,14 +1,19 @@
 package org.dbms.dbmshealthcare.security;
 
 import com.nimbusds.jose.JOSEException;
-import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.List;
+import org.dbms.dbmshealthcare.utils.CursorUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -55,13 +60,19 @@ public class SecurityConfig {
 //                new NegatedRequestMatcher(new AntPathRequestMatcher("/api/doctors", "GET"))
 //            ),
             new AntPathRequestMatcher("/auth/me"),
-            new AntPathRequestMatcher("/auth/identity")
+            new AntPathRequestMatcher("/auth/identity"),
+            // management endpoints other than health are for admins only
+            new AndRequestMatcher(
+                new AntPathRequestMatcher("/actuator/**"),
+                new NegatedRequestMatcher(new AntPathRequestMatcher("/actuator/health/**"))
+            )
         ))
             .csrf(AbstractHttpConfigurer::disable)
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .authorizeHttpRequests(
                 auth ->
-                    auth.anyRequest().authenticated()
+                    auth.requestMatchers(new AntPathRequestMatcher("/actuator/**")).hasRole("ADMIN")
+                        .anyRequest().authenticated()
             )
             .oauth2ResourceServer((oauth2) -> oauth2.jwt(
                 jwt -> jwt.decoder(jwtDecoder)
@@ -140,6 +151,7 @@ public class SecurityConfig {
     config.setAllowedOrigins(List.of("http://localhost:5173"));
     config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
     config.setAllowedHeaders(List.of("*"));
+    config.setExposedHeaders(List.of(CursorUtils.NEXT_CURSOR_HEADER));
     config.setAllowCredentials(true);
 
     UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -150,21 +162,28 @@ public class SecurityConfig {
   // warning: the public and private key are both stored as JWK in the file system and retrieved
   // in production the private key should be securely stored
   @Bean
-  public RSAKey jwk() throws IOException, ParseException {
-    JWKSet jwkSet = JWKSet.load(new File("src/main/resources/keys/jwks.json"));
-    JWK jwk = jwkSet.getKeys().get(0);
-    return jwk.toRSAKey();
+  public JWKSet jwkSet(@Value("${jwt.key-set:src/main/resources/keys/jwks.json}") String keySet)
+      throws IOException, ParseException {
+    return JWKSet.load(new File(keySet));
   }
 
+  // verifies against every public key in the set, picked by the token's kid, so tokens signed
+  // with a key that has since been rotated out of signing stay valid until they expire
   @Bean
-  public JwtDecoder jwtDecoder(RSAKey rsaKey) throws JOSEException {
-    return NimbusJwtDecoder
-        .withPublicKey(rsaKey.toRSAPublicKey()).build();
+  public JwtDecoder jwtDecoder(JWKSet jwkSet, MeterRegistry meterRegistry,
+      @Value("${jwt.verified-token-cache.max-size:10000}") long cacheSize) throws JOSEException {
+    DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+    jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(
+        TokenSigner.algorithmsOf(jwkSet), new ImmutableJWKSet<>(jwkSet.toPublicJWKSet())));
+    // claims are validated by the decoder's OAuth2TokenValidator instead
+    jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+    });
+    return new CachingJwtDecoder(new NimbusJwtDecoder(jwtProcessor), cacheSize, meterRegistry);
   }
 
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public PasswordEncoder passwordEncoder(PasswordHashingProperties properties) {
+    return new BCryptPasswordEncoder(properties.bcryptStrength());
   }
 
 }
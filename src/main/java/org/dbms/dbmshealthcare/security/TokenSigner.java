@@ -0,0 +1,109 @@
+package org.dbms.dbmshealthcare.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.impl.ECDSA;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Signs tokens with the active key of the JWK set. A signer is built once per private key at
+ * startup (converting a JWK to a JCA private key is not free), and the Nimbus signers create
+ * a fresh JCA Signature per call, so one instance is safely shared by all request threads.
+ *
+ * <p>The active key is {@code jwt.signing.key-id}, or the first key for
+ * {@code jwt.signing.algorithm} when no kid is configured. Every key stays in the set the
+ * decoder verifies against, so rotating means adding a key and pointing the kid at it; tokens
+ * signed with the previous key keep verifying until that key is removed.
+ */
+@Component
+@Slf4j
+public class TokenSigner {
+
+  private final Map<String, KeySigner> signers = new LinkedHashMap<>();
+  private final KeySigner active;
+
+  public TokenSigner(JWKSet jwkSet,
+      @Value("${jwt.signing.key-id:}") String keyId,
+      @Value("${jwt.signing.algorithm:RS256}") String algorithm) throws JOSEException {
+    for (JWK jwk : jwkSet.getKeys()) {
+      if (!jwk.isPrivate()) {
+        continue;
+      }
+      JWSAlgorithm jwsAlgorithm = algorithmOf(jwk);
+      JWSHeader header = new JWSHeader.Builder(jwsAlgorithm).keyID(jwk.getKeyID()).build();
+      signers.put(jwk.getKeyID(), new KeySigner(header, signerOf(jwk)));
+    }
+
+    this.active = keyId.isBlank()
+        ? signers.values().stream()
+            .filter(signer -> signer.header().getAlgorithm().getName().equals(algorithm))
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException(
+                "No signing key for algorithm " + algorithm))
+        : Optional.ofNullable(signers.get(keyId))
+            .orElseThrow(() -> new IllegalStateException("No signing key with kid " + keyId));
+
+    log.info("Signing tokens with {} key {}", active.header().getAlgorithm(),
+        active.header().getKeyID());
+  }
+
+  public SignedJWT sign(JWTClaimsSet claimsSet) throws JOSEException {
+    SignedJWT jwt = new SignedJWT(active.header(), claimsSet);
+    jwt.sign(active.signer());
+    return jwt;
+  }
+
+  /**
+   * Algorithms of every key in the set, signing or not, i.e. what a verifier has to accept.
+   */
+  public static Set<JWSAlgorithm> algorithmsOf(JWKSet jwkSet) throws JOSEException {
+    Set<JWSAlgorithm> algorithms = new HashSet<>();
+    for (JWK jwk : jwkSet.getKeys()) {
+      algorithms.add(algorithmOf(jwk));
+    }
+    return algorithms;
+  }
+
+  // EdDSA (OKP) keys are rejected: the Nimbus verifiers behind Spring's JwtDecoder only accept
+  // JCA RSA and EC keys, so we could sign tokens nobody can verify
+  private static JWSAlgorithm algorithmOf(JWK jwk) throws JOSEException {
+    if (!(jwk instanceof RSAKey) && !(jwk instanceof ECKey)) {
+      throw new JOSEException("Unsupported signing key " + jwk.getKeyID());
+    }
+    if (jwk.getAlgorithm() != null) {
+      return JWSAlgorithm.parse(jwk.getAlgorithm().getName());
+    }
+    if (jwk instanceof ECKey ecKey) {
+      return ECDSA.resolveAlgorithm(ecKey.getCurve());
+    }
+    return JWSAlgorithm.RS256;
+  }
+
+  private static JWSSigner signerOf(JWK jwk) throws JOSEException {
+    if (jwk instanceof RSAKey rsaKey) {
+      return new RSASSASigner(rsaKey);
+    }
+    return new ECDSASigner((ECKey) jwk);
+  }
+
+  private record KeySigner(JWSHeader header, JWSSigner signer) {
+
+  }
+}
@@ -3,6 +3,9 @@ package org.dbms.dbmshealthcare.service;
 import java.time.YearMonth;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.dbms.dbmshealthcare.cache.AnalyticsCache;
+import org.dbms.dbmshealthcare.cache.AnalyticsCache.Endpoint;
 import org.dbms.dbmshealthcare.dto.analytics.AgeDistributionDto;
 import org.dbms.dbmshealthcare.dto.analytics.AnalyticsFilterDto;
 import org.dbms.dbmshealthcare.dto.analytics.SpecialtyStatsDto;
@@ -10,32 +13,69 @@ import org.dbms.dbmshealthcare.dto.analytics.TopDoctorsDto;
 import org.dbms.dbmshealthcare.repository.AnalyticsRepository;
 import org.dbms.dbmshealthcare.dto.analytics.DoctorCountBySpecialtyDto;
 import org.dbms.dbmshealthcare.dto.analytics.RoleDistributionDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class AnalyticsService {
 
   private final AnalyticsRepository analyticsRepository;
+  private final AnalyticsCache analyticsCache;
+
+  @Value("${analytics.age-distribution.snapshot.enabled:false}")
+  private boolean ageDistributionSnapshotEnabled;
+
+  // served instead of a live aggregation once the scheduled refresh has populated it
+  private volatile List<AgeDistributionDto> ageDistributionSnapshot;
 
   public List<TopDoctorsDto> getTopDoctors(AnalyticsFilterDto filter) {
     YearMonth yearMonth = YearMonth.of(filter.year(), filter.month());
-    return analyticsRepository.getTopDoctors(yearMonth);
+    return analyticsCache.get(Endpoint.TOP_DOCTORS, yearMonth,
+        () -> analyticsRepository.getTopDoctors(yearMonth));
   }
 
   public List<SpecialtyStatsDto> getSpecialtyStats(AnalyticsFilterDto filter) {
     YearMonth yearMonth = YearMonth.of(filter.year(), filter.month());
-    return analyticsRepository.getSpecialtyStats(yearMonth);  }
+    return analyticsCache.get(Endpoint.SPECIALTY_STATS, yearMonth,
+        () -> analyticsRepository.getSpecialtyStats(yearMonth));
+  }
+
+  public void rebuildMonthlyStats(AnalyticsFilterDto filter) {
+    YearMonth yearMonth = YearMonth.of(filter.year(), filter.month());
+    analyticsRepository.rebuildMonthlyStats(yearMonth);
+    analyticsCache.invalidate(Endpoint.TOP_DOCTORS, yearMonth);
+    analyticsCache.invalidate(Endpoint.SPECIALTY_STATS, yearMonth);
+  }
 
   public List<AgeDistributionDto> getAgeDistribution() {
-    return analyticsRepository.getAgeDistribution();
+    List<AgeDistributionDto> snapshot = ageDistributionSnapshot;
+    return snapshot != null ? snapshot : analyticsCache.get(Endpoint.AGE_DISTRIBUTION,
+        analyticsRepository::getAgeDistribution);
+  }
+
+  @Scheduled(fixedDelayString = "${analytics.age-distribution.snapshot.refresh-interval:PT10M}")
+  public void refreshAgeDistributionSnapshot() {
+    if (!ageDistributionSnapshotEnabled) {
+      return;
+    }
+
+    try {
+      ageDistributionSnapshot = analyticsRepository.getAgeDistribution();
+    } catch (Exception e) {
+      log.warn("Failed to refresh age distribution snapshot: {}", e.getMessage());
+    }
   }
 
   public List<DoctorCountBySpecialtyDto> getDoctorCountBySpecialty() {
-    return analyticsRepository.getDoctorCountBySpecialty();
+    return analyticsCache.get(Endpoint.DOCTOR_COUNT_BY_SPECIALTY,
+        analyticsRepository::getDoctorCountBySpecialty);
   }
   
   public List<RoleDistributionDto> getUserRoleDistribution() {
-    return analyticsRepository.getUserRoleDistribution();
+    return analyticsCache.get(Endpoint.USER_ROLE_DISTRIBUTION,
+        analyticsRepository::getUserRoleDistribution);
   }
 }
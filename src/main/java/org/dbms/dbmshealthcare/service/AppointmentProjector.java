@@ -0,0 +1,89 @@
+package org.dbms.dbmshealthcare.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
+import org.dbms.dbmshealthcare.constants.BookingMode;
+import org.dbms.dbmshealthcare.constants.Role;
+import org.dbms.dbmshealthcare.metrics.OperationInstrumentation;
+import org.dbms.dbmshealthcare.model.Appointment;
+import org.dbms.dbmshealthcare.repository.AppointmentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maintains the appointments collection for the embedded booking mode, where a booking is first
+ * recorded only in its slot. Each booking is projected asynchronously right after it is made;
+ * a reconciliation pass every {@code booking.projection.reconcile-interval} projects bookings of
+ * the last {@code booking.projection.lookback} that were missed, e.g. because the node died
+ * first. Until its projection lands, a new appointment is not visible to appointment queries.
+ *
+ * <p>Both run outside the booking request, without its authentication, so they use the admin
+ * template, whose database user may read slots and insert appointments.
+ *
+ * <p>Counts {@code projected}, {@code failed} and {@code reconciled} under operation
+ * {@code appointments.projection}.
+ */
+@Component
+@Slf4j
+public class AppointmentProjector {
+
+  private static final String OPERATION = "appointments.projection";
+
+  private final AppointmentRepository appointmentRepository;
+  private final MongoTemplateResolver mongoTemplateResolver;
+  private final OperationInstrumentation instrumentation;
+
+  @Value("${booking.mode:transactional}")
+  private BookingMode bookingMode;
+
+  @Value("${booking.projection.lookback:PT1H}")
+  private Duration lookback;
+
+  public AppointmentProjector(AppointmentRepository appointmentRepository,
+      MongoTemplateResolver mongoTemplateResolver, OperationInstrumentation instrumentation) {
+    this.appointmentRepository = appointmentRepository;
+    this.mongoTemplateResolver = mongoTemplateResolver;
+    this.instrumentation = instrumentation;
+  }
+
+  @Async
+  public void project(Appointment appointment) {
+    try {
+      mongoTemplateResolver.runAs(Role.ADMIN,
+          () -> appointmentRepository.insertProjected(appointment));
+      instrumentation.count(OPERATION, "projected");
+    } catch (Exception e) {
+      instrumentation.count(OPERATION, "failed");
+      log.warn("Failed to project appointment {}, left to reconciliation: {}",
+          appointment.getId(), e.getMessage());
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${booking.projection.reconcile-interval:PT1M}")
+  public void reconcile() {
+    if (bookingMode != BookingMode.EMBEDDED) {
+      return;
+    }
+
+    try {
+      List<Appointment> missing = mongoTemplateResolver.runAs(Role.ADMIN, () -> {
+        List<Appointment> unprojected = appointmentRepository.findUnprojected(
+            Instant.now().minus(lookback));
+        unprojected.forEach(appointmentRepository::insertProjected);
+        return unprojected;
+      });
+
+      if (!missing.isEmpty()) {
+        instrumentation.count(OPERATION, "reconciled", missing.size());
+        log.info("Projected {} missed appointments", missing.size());
+      }
+    } catch (Exception e) {
+      log.warn("Failed to reconcile appointment projections: {}", e.getMessage());
+    }
+  }
+}
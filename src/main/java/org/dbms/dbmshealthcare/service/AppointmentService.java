@@ -1,27 +1,45 @@
 package org.dbms.dbmshealthcare.service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import lombok.RequiredArgsConstructor;
+import org.dbms.dbmshealthcare.cache.SlotAvailabilityIndex;
 import org.dbms.dbmshealthcare.constants.AppointmentStatus;
+import org.dbms.dbmshealthcare.constants.BookingMode;
 import org.dbms.dbmshealthcare.constants.Role;
 import org.dbms.dbmshealthcare.constants.SlotStatus;
 import org.dbms.dbmshealthcare.dto.AppointmentCreateDto;
 import org.dbms.dbmshealthcare.dto.AppointmentFilter;
+import org.dbms.dbmshealthcare.dto.AppointmentStatusBatchDto;
 import org.dbms.dbmshealthcare.dto.AppointmentUpdateDto;
 import org.dbms.dbmshealthcare.dto.SlotFilter;
+import org.dbms.dbmshealthcare.dto.SlotScheduleDto;
 import org.dbms.dbmshealthcare.exception.EntityNotFoundException;
+import org.dbms.dbmshealthcare.exception.HoldLimitExceededException;
 import org.dbms.dbmshealthcare.exception.UnauthorizedOperationException;
 import org.dbms.dbmshealthcare.model.Appointment;
 import org.dbms.dbmshealthcare.model.Doctor;
 import org.dbms.dbmshealthcare.model.Slot;
+import org.dbms.dbmshealthcare.pojo.AppointmentStatusChangeResult;
 import org.dbms.dbmshealthcare.pojo.AuthenticatedUserInfo;
+import org.dbms.dbmshealthcare.pojo.AvailableSlot;
+import org.dbms.dbmshealthcare.pojo.CursorPage;
+import org.dbms.dbmshealthcare.pojo.SlotScheduleResult;
 import org.dbms.dbmshealthcare.repository.AppointmentRepository;
 import org.dbms.dbmshealthcare.repository.DoctorRepository;
 import org.dbms.dbmshealthcare.repository.SlotRepository;
 import org.dbms.dbmshealthcare.utils.AuthUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -34,45 +52,209 @@ public class AppointmentService {
 
   private final SlotRepository slotRepository;
   private final AppointmentRepository appointmentRepository;
+  private final BookingEngine bookingEngine;
+  private final SlotAvailabilityIndex availabilityIndex;
+  private final DoctorRepository doctorRepository;
+  private final AppointmentProjector appointmentProjector;
+
+  @Value("${booking.mode:transactional}")
+  private BookingMode bookingMode;
+
+  @Value("${slots.holds.ttl:PT5M}")
+  private Duration holdTtl;
+
+  @Value("${slots.holds.max-per-patient:3}")
+  private int maxHoldsPerPatient;
+
+  @Value("${slots.schedule.batch-size:500}")
+  private int scheduleBatchSize;
+
+  @Value("${slots.schedule.max-slots:5000}")
+  private int scheduleMaxSlots;
+
+  @Value("${pagination.max-limit:500}")
+  private int maxPageSize;
 
   public Slot createSlot(Slot slotCreateDto) {
     return slotRepository.save(slotCreateDto);
   }
 
-  public Slot getSlotById(String id) {
-    return slotRepository.findById(id);
-  }
+  /**
+   * Generates the slots described by the schedule and inserts the ones that do not overlap the
+   * doctor's existing slots. Overlap is checked against one range query over the schedule's span;
+   * a slot a concurrent schedule inserted after that query with the same start time is refused by
+   * the unique index on doctor and start time and counted as failed. Concurrent schedules whose
+   * slots start at different times can still overlap.
+   */
+  public SlotScheduleResult scheduleSlots(SlotScheduleDto schedule) {
+    AuthenticatedUserInfo authenticatedUserInfo = AuthUtils.getAuthenticatedUserInfo();
+    String doctorId = schedule.doctorId();
 
-  public List<Slot> getSlots(SlotFilter filter) {
-    if (filter == null) {
-      return slotRepository.findAll();
+    if (authenticatedUserInfo.role().equals(Role.DOCTOR)) {
+      if (doctorId == null) {
+        doctorId = authenticatedUserInfo.roleId();
+      } else if (!doctorId.equals(authenticatedUserInfo.roleId())) {
+        throw new UnauthorizedOperationException("doctor Id mismatch");
+      }
+    } else if (!authenticatedUserInfo.role().equals(Role.ADMIN)) {
+      throw new UnauthorizedOperationException("only doctors and admins can schedule slots");
     }
 
-    Query query = buildQuery(filter);
-    return slotRepository.findAll(query);
+    if (doctorId == null) {
+      throw new IllegalArgumentException("doctorId is required");
+    }
+
+    List<Slot> generated = generateSlots(doctorId, schedule);
+
+    if (generated.isEmpty()) {
+      return new SlotScheduleResult(0, 0, 0, 0);
+    }
+
+    // existing slots merged into disjoint busy intervals, keyed by start
+    TreeMap<LocalDateTime, LocalDateTime> busy = new TreeMap<>();
+    for (Slot existing : slotRepository.findOverlapping(doctorId,
+        generated.get(0).getStartTime(), generated.get(generated.size() - 1).getEndTime())) {
+      Map.Entry<LocalDateTime, LocalDateTime> last = busy.lastEntry();
+      if (last != null && !existing.getStartTime().isAfter(last.getValue())) {
+        if (existing.getEndTime().isAfter(last.getValue())) {
+          busy.put(last.getKey(), existing.getEndTime());
+        }
+      } else {
+        busy.put(existing.getStartTime(), existing.getEndTime());
+      }
+    }
+
+    List<Slot> free = new ArrayList<>(generated.size());
+    for (Slot slot : generated) {
+      Map.Entry<LocalDateTime, LocalDateTime> before = busy.lowerEntry(slot.getEndTime());
+      if (before == null || !before.getValue().isAfter(slot.getStartTime())) {
+        free.add(slot);
+      }
+    }
+
+    int created = free.isEmpty() ? 0 : slotRepository.insertUnordered(free, scheduleBatchSize);
+
+    return new SlotScheduleResult(generated.size(), created, generated.size() - free.size(),
+        free.size() - created);
   }
 
-  public void deleteSlot(String id) {
-    AuthenticatedUserInfo authenticatedUserInfo = AuthUtils.getAuthenticatedUserInfo();
-    Slot slot = slotRepository.findById(id);
+  private List<Slot> generateSlots(String doctorId, SlotScheduleDto schedule) {
+    Duration duration = Duration.ofMinutes(schedule.durationMinutes());
+    Set<LocalDate> exclusions = schedule.exclusions() == null ? Set.of() : schedule.exclusions();
+    List<Slot> slots = new ArrayList<>();
 
-    if (slot == null) {
-      throw new EntityNotFoundException("Slot not found");
+    for (LocalDate day = schedule.from(); !day.isAfter(schedule.to()); day = day.plusDays(1)) {
+      if (!schedule.days().contains(day.getDayOfWeek()) || exclusions.contains(day)) {
+        continue;
+      }
+
+      LocalDateTime dayEnd = day.atTime(schedule.endTime());
+
+      for (LocalDateTime start = day.atTime(schedule.startTime());
+          !start.plus(duration).isAfter(dayEnd); start = start.plus(duration)) {
+        if (slots.size() == scheduleMaxSlots) {
+          throw new IllegalArgumentException(
+              "Schedule generates more than " + scheduleMaxSlots + " slots");
+        }
+
+        Slot slot = new Slot();
+        slot.setDoctorId(doctorId);
+        slot.setStartTime(start);
+        slot.setEndTime(start.plus(duration));
+        slots.add(slot);
+      }
     }
 
-    if (authenticatedUserInfo.role().equals(Role.DOCTOR) && !slot.getDoctorId()
-        .equals(authenticatedUserInfo.roleId())) {
-      throw new UnauthorizedOperationException("doctor Id mismatch");
+    return slots;
+  }
+
+  /**
+   * Available slots of a doctor starting within [from, to), from the in-memory availability
+   * index once it is warm and from MongoDB before that.
+   */
+  public List<AvailableSlot> getAvailableSlots(String doctorId, LocalDateTime from,
+      LocalDateTime to, Integer limit) {
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime start = from == null || from.isBefore(now) ? now : from;
+    int max = limit == null || limit <= 0 || limit > maxPageSize ? maxPageSize : limit;
+
+    if (availabilityIndex.isReady()) {
+      return availabilityIndex.findAvailable(doctorId, start, to, max);
     }
 
-    Slot deleted = slotRepository.delete(id);
+    Criteria criteria = Criteria.where("doctor_id").is(doctorId)
+        .and("status").is(SlotStatus.AVAILABLE);
+    criteria = to == null ? criteria.and("start_time").gte(start)
+        : criteria.and("start_time").gte(start).lt(to);
+
+    return slotRepository.findAll(Query.query(criteria)
+            .with(Sort.by("start_time", "_id"))
+            .limit(max))
+        .stream()
+        .map(AppointmentService::toAvailableSlot)
+        .toList();
+  }
 
-    if (deleted == null) {
-      throw new RuntimeException("Slot delete failed");
+  /**
+   * The earliest available slot starting at or after {@code after} with any doctor of the
+   * specialization.
+   */
+  public AvailableSlot getEarliestAvailableSlot(String specialization, LocalDateTime after) {
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime start = after == null || after.isBefore(now) ? now : after;
+
+    if (availabilityIndex.isReady()) {
+      return availabilityIndex.findEarliest(specialization, start)
+          .orElseThrow(() -> new EntityNotFoundException("No available slot"));
     }
+
+    List<String> doctorIds = doctorRepository.findAll(
+            Query.query(Criteria.where("specialization").is(specialization)))
+        .stream()
+        .map(Doctor::getId)
+        .toList();
+
+    return slotRepository.findAll(Query.query(Criteria.where("doctor_id").in(doctorIds)
+                .and("status").is(SlotStatus.AVAILABLE)
+                .and("start_time").gte(start))
+            .with(Sort.by("start_time", "_id"))
+            .limit(1))
+        .stream()
+        .findFirst()
+        .map(AppointmentService::toAvailableSlot)
+        .orElseThrow(() -> new EntityNotFoundException("No available slot"));
   }
 
-  public List<Appointment> getAppointments(AppointmentFilter filter) {
+  private static AvailableSlot toAvailableSlot(Slot slot) {
+    return new AvailableSlot(slot.getId(), slot.getDoctorId(), slot.getStartTime(),
+        slot.getEndTime());
+  }
+
+  public Slot getSlotById(String id) {
+    return slotRepository.findById(id);
+  }
+
+  public CursorPage<Slot> getSlots(SlotFilter filter, String cursor, Integer limit) {
+    Query query = filter == null ? new Query() : buildQuery(filter);
+    return slotRepository.findPage(query, "start_time", cursor, limit);
+  }
+
+  public void deleteSlot(String id) {
+    slotRepository.deleteScoped(id);
+  }
+
+  public CursorPage<Appointment> getAppointments(AppointmentFilter filter, String cursor,
+      Integer limit) {
+    scopeToCaller(filter);
+    Query query = buildQuery(filter);
+    return appointmentRepository.findPage(query, "slot.startTime", cursor, limit);
+  }
+
+  /**
+   * Restricts the filter to the caller's own appointments when the caller is a doctor or patient,
+   * rejecting filters that ask for someone else's.
+   */
+  static void scopeToCaller(AppointmentFilter filter) {
     AuthenticatedUserInfo authenticatedUserInfo = AuthUtils.getAuthenticatedUserInfo();
     Role role = authenticatedUserInfo.role();
     String roleId = authenticatedUserInfo.roleId();
@@ -92,58 +274,32 @@ public class AppointmentService {
       }
       filter.setPatientId(roleId);
     }
-
-    Query query = buildQuery(filter);
-    return appointmentRepository.findAll(query);
   }
 
   public Appointment getAppointmentById(String id) {
-    AuthenticatedUserInfo authenticatedUserInfo = AuthUtils.getAuthenticatedUserInfo();
-    Role role = authenticatedUserInfo.role();
-    String roleId = authenticatedUserInfo.roleId();
-
-    Appointment appointment = appointmentRepository.findById(id);
-
-    if (appointment != null) {
-      if (role.equals(Role.DOCTOR) && !appointment.getDoctorId().equals(roleId)) {
-        throw new UnauthorizedOperationException("doctor ID mismatch");
-      }
-
-      if (role.equals(Role.PATIENT) && !appointment.getPatientId().equals(roleId)) {
-        throw new UnauthorizedOperationException("patient ID mismatch");
-      }
-    }
-
-    return appointment;
+    return appointmentRepository.findScopedById(id);
   }
 
   public void updateAppointment(String id, AppointmentUpdateDto appointmentUpdateDto) {
-    AuthenticatedUserInfo authenticatedUserInfo = AuthUtils.getAuthenticatedUserInfo();
-    Role role = authenticatedUserInfo.role();
-    String roleId = authenticatedUserInfo.roleId();
+    AppointmentStatus status = appointmentUpdateDto.status();
 
-    Appointment appointment = appointmentRepository.findById(id);
+    appointmentRepository.update(id, status, appointmentUpdateDto.visitReason());
+  }
 
-    if (appointment != null) {
-      if (role.equals(Role.DOCTOR) && !appointment.getDoctorId().equals(roleId)) {
-        throw new UnauthorizedOperationException("doctor ID mismatch");
-      }
+  /**
+   * Applies many status changes at once, e.g. a doctor approving a day's pending appointments.
+   * Appointments of other doctors or patients are reported as NOT_FOUND and left alone.
+   */
+  public List<AppointmentStatusChangeResult> updateAppointmentStatuses(
+      AppointmentStatusBatchDto batch) {
+    Map<String, AppointmentStatus> changes = new LinkedHashMap<>();
+    batch.changes().forEach(change -> changes.put(change.id(), change.status()));
 
-      if (role.equals(Role.PATIENT) && !appointment.getPatientId().equals(roleId)) {
-        throw new UnauthorizedOperationException("patient ID mismatch");
-      }
-    }
-
-    appointmentRepository.update(id, appointmentUpdateDto.status(),
-        appointmentUpdateDto.visitReason());
+    return appointmentRepository.updateStatuses(changes);
   }
 
   public void deleteAppointment(String id) {
-      Appointment deleted = appointmentRepository.delete(id);
-
-      if (deleted == null) {
-        throw new RuntimeException("Appointment delete failed");
-      }
+    appointmentRepository.deleteScoped(id);
   }
 
   public Appointment createAppointment(AppointmentCreateDto appointmentCreateDto) {
@@ -153,11 +309,59 @@ public class AppointmentService {
     String slotId = appointmentCreateDto.slotId();
     String visitReason = appointmentCreateDto.visitReason();
 
-    return appointmentRepository.create(patientId, slotId,
-        visitReason);
+    if (bookingMode == BookingMode.EMBEDDED) {
+      Appointment appointment = bookingEngine.book(slotId, lane -> lane.call(
+          () -> appointmentRepository.createEmbedded(patientId, slotId, visitReason)));
+      appointmentProjector.project(appointment);
+      return appointment;
+    }
+
+    return bookingEngine.book(slotId,
+        lane -> appointmentRepository.create(patientId, slotId, visitReason, lane));
+  }
+
+  /**
+   * Holds the slot for the calling patient for {@code slots.holds.ttl}, so nobody else can book
+   * it while they fill in the visit reason; creating the appointment then confirms the hold.
+   * Holding it again returns the same hold without extending it, and a patient may hold at most
+   * {@code slots.holds.max-per-patient} slots at a time.
+   */
+  public Slot holdSlot(String slotId) {
+    AuthenticatedUserInfo authenticatedUserInfo = AuthUtils.getAuthenticatedUserInfo();
+    if (!authenticatedUserInfo.role().equals(Role.PATIENT)) {
+      throw new UnauthorizedOperationException("only patients can hold slots");
+    }
+
+    String patientId = authenticatedUserInfo.roleId();
+    Instant now = Instant.now();
+    Slot slot = slotRepository.hold(slotId, patientId, now, holdTtl);
+
+    if (slot == null) {
+      if (slotRepository.findBookingInfo(slotId) == null) {
+        throw new EntityNotFoundException("Slot not found");
+      }
+      throw new RuntimeException("Slot not available");
+    }
+
+    // counted after holding, so concurrent holds by one patient cannot both slip under the limit
+    if (slotRepository.countActiveHolds(patientId, now, slotId) >= maxHoldsPerPatient) {
+      slotRepository.releaseHold(slotId, patientId);
+      throw new HoldLimitExceededException(
+          "A patient can hold at most " + maxHoldsPerPatient + " slots at a time");
+    }
+
+    return slot;
+  }
+
+  public void releaseSlotHold(String slotId) {
+    String patientId = AuthUtils.getAuthenticatedUserInfo().roleId();
+
+    if (slotRepository.releaseHold(slotId, patientId) == null) {
+      throw new EntityNotFoundException("Hold not found");
+    }
   }
 
-  private Query buildQuery(SlotFilter filter) {
+  static Query buildQuery(SlotFilter filter) {
     Query query = new Query();
 
     String doctorId = filter.getDoctorId();
@@ -184,7 +388,7 @@ public class AppointmentService {
     return query;
   }
 
-  private Query buildQuery(AppointmentFilter filter) {
+  static Query buildQuery(AppointmentFilter filter) {
     Query query = new Query();
 
     String patientId = filter.getPatientId();
@@ -202,11 +406,11 @@ public class AppointmentService {
     }
 
     if (from != null) {
-      query.addCriteria(Criteria.where("slot.start_time").gte(from));
+      query.addCriteria(Criteria.where("slot.startTime").gte(from));
     }
 
     if (to != null) {
-      query.addCriteria(Criteria.where("slot.end_time").lte(to));
+      query.addCriteria(Criteria.where("slot.endTime").lte(to));
     }
 
     if (status != null) {
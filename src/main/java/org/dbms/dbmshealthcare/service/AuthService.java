@@ -6,6 +6,7 @@ import java.sql.Date;
 import java.time.Instant;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
+import org.dbms.dbmshealthcare.cache.JwtIdRegistry;
 import org.dbms.dbmshealthcare.dto.TestIdentityCheckDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,6 +14,7 @@ import org.dbms.dbmshealthcare.constants.JwtType;
 import org.dbms.dbmshealthcare.dto.IdentityCheckDto;
 import org.dbms.dbmshealthcare.dto.UserCreateDto;
 import org.dbms.dbmshealthcare.dto.UserUpdateDto;
+import org.dbms.dbmshealthcare.exception.ServiceBusyException;
 import org.dbms.dbmshealthcare.model.Doctor;
 import org.dbms.dbmshealthcare.model.Patient;
 import org.dbms.dbmshealthcare.model.User;
@@ -20,9 +22,13 @@ import org.dbms.dbmshealthcare.model.pojo.TokenPair;
 import org.dbms.dbmshealthcare.repository.DoctorRepository;
 import org.dbms.dbmshealthcare.repository.PatientRepository;
 import org.dbms.dbmshealthcare.repository.UserRepository;
+import org.dbms.dbmshealthcare.security.PasswordHasher;
 import org.dbms.dbmshealthcare.utils.JwtUtils;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Update;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -33,14 +39,16 @@ public class AuthService {
 
   private final UserService userService;
   private final UserRepository userRepository;
-  private final PasswordEncoder passwordEncoder;
+  private final PasswordHasher passwordHasher;
   private final JwtUtils jwtUtils;
+  private final JwtDecoder jwtDecoder;
+  private final JwtIdRegistry jwtIdRegistry;
 
   public User register(UserCreateDto userCreateDto) {
     User user = new User(
         userCreateDto.name(),
         userCreateDto.email(),
-        passwordEncoder.encode(userCreateDto.password()),
+        passwordHasher.encode(userCreateDto.password()),
         userCreateDto.dateOfBirth(),
         userCreateDto.phoneNumber()
     );
@@ -60,7 +68,7 @@ public class AuthService {
     User user = userService.loadUserByUsername(email);
     String hashedPassword = user.getPassword();
 
-    if (!passwordEncoder.matches(password, hashedPassword)) {
+    if (!passwordHasher.matches(password, hashedPassword)) {
       throw new RuntimeException("Invalid credentials");
     }
 
@@ -83,7 +91,17 @@ public class AuthService {
 
     Update update = new Update().set("jwt_id", jti);
 
+    // the plain password is only ever available here, so this is where old hashes get upgraded
+    if (passwordHasher.needsRehash(hashedPassword)) {
+      try {
+        update.set("password", passwordHasher.encode(password));
+      } catch (ServiceBusyException e) {
+        logger.debug("Hashing pool busy, password upgrade for {} deferred", user.getId());
+      }
+    }
+
     userRepository.update(user.getId(), update);
+    jwtIdRegistry.put(user.getId(), jti);
 
     return tokens;
   }
@@ -96,8 +114,9 @@ public class AuthService {
       String jwtIdClaim = claimsSet.getJWTID();
 
       String email = claimsSet.getSubject();
+      String userId = (String) claimsSet.getJSONObjectClaim("profile").get("id");
 
-      verifyJwtId(jwtIdClaim, email);
+      verifyJwtId(jwtIdClaim, userId);
 
       Map<String, Object> claims = Map.of(
           "roles", claimsSet.getListClaim("roles"),
@@ -112,12 +131,39 @@ public class AuthService {
     }
   }
 
-  private void verifyJwtId(String jwtId, String email) {
-    User user = userService.loadUserByUsername(email);
+  /**
+   * Revokes the refresh token, unless the user has logged in again since it was issued; a stale
+   * or unverifiable token only has its cookie cleared.
+   */
+  public void logout(String refreshToken) {
+    if (refreshToken == null || refreshToken.isBlank()) {
+      return;
+    }
+
+    Jwt jwt;
+    try {
+      jwt = jwtDecoder.decode(refreshToken);
+    } catch (JwtException e) {
+      return;
+    }
 
-    String jti = user.getJwtId();
+    Map<String, Object> profile = jwt.getClaimAsMap("profile");
+    String userId = profile == null ? null : (String) profile.get("id");
+
+    if (userId == null || jwt.getId() == null) {
+      return;
+    }
+
+    User user = userRepository.update(userId, Criteria.where("jwt_id").is(jwt.getId()),
+        new Update().unset("jwt_id"));
+
+    if (user != null) {
+      jwtIdRegistry.revoke(userId);
+    }
+  }
 
-    if (!jwtId.equals(jti)) {
+  private void verifyJwtId(String jwtId, String userId) {
+    if (!jwtIdRegistry.matches(userId, jwtId)) {
       throw new RuntimeException("Invalidated refresh token present");
     }
   }
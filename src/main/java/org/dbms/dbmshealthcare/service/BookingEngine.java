@@ -0,0 +1,93 @@
+package org.dbms.dbmshealthcare.service;
+
+import com.mongodb.MongoException;
+import java.time.Duration;
+import java.util.function.Function;
+import org.dbms.dbmshealthcare.cache.SlotClaims;
+import org.dbms.dbmshealthcare.config.TimedLock;
+import org.dbms.dbmshealthcare.exception.ServiceBusyException;
+import org.dbms.dbmshealthcare.metrics.OperationInstrumentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serializes concurrent bookings of the same slot on this node, so they take turns instead of
+ * racing each other into conflicting transactions. Each slot maps to one of
+ * {@code booking.lanes} locks (striped by slot id, since a booking only writes its own slot
+ * document). The booking is handed its lane and takes it around each write attempt, so a
+ * transaction waiting to be retried does not block the lane; a request waits at most
+ * {@code booking.lane-timeout} for it and then fails with 503.
+ *
+ * <p>Every time the lane is taken, the booking claims its slot in {@link SlotClaims} before
+ * writing, so of several requests for one slot only the first reaches MongoDB and the rest are
+ * turned away in memory. The claim is kept once the slot is booked and given up if the booking
+ * fails. Other nodes are still arbitrated by the slot's conditional update.
+ *
+ * <p>Outcomes are counted as {@code app.operation.events} (operation {@code booking}) and
+ * booking latency, including the wait for the lane, is timed as {@code app.operation}.
+ */
+@Component
+public class BookingEngine {
+
+  private static final String OPERATION = "booking";
+
+  private final SlotClaims slotClaims;
+  private final OperationInstrumentation instrumentation;
+  private final TimedLock[] lanes;
+
+  public BookingEngine(SlotClaims slotClaims, OperationInstrumentation instrumentation,
+      @Value("${booking.lanes:64}") int laneCount,
+      @Value("${booking.lane-timeout:PT5S}") Duration laneTimeout) {
+    this.slotClaims = slotClaims;
+    this.instrumentation = instrumentation;
+    this.lanes = new TimedLock[laneCount];
+    for (int i = 0; i < laneCount; i++) {
+      lanes[i] = new TimedLock(laneTimeout);
+    }
+  }
+
+  /**
+   * Runs {@code booking} with the lane of the slot, which the booking must hold while it writes
+   * (directly with {@link TimedLock#call}, or per attempt through
+   * {@link org.dbms.dbmshealthcare.config.TransactionExecutor}).
+   */
+  public <T> T book(String slotId, Function<TimedLock, T> booking) {
+    long start = instrumentation.start();
+    Object claim = new Object();
+    try {
+      if (slotClaims.isClaimed(slotId)) {
+        throw claimed();
+      }
+
+      TimedLock lane = lanes[Math.floorMod(slotId.hashCode(), lanes.length)]
+          .checking(() -> {
+            if (!slotClaims.tryClaim(slotId, claim)) {
+              throw claimed();
+            }
+          });
+
+      try {
+        T result = booking.apply(lane);
+        instrumentation.count(OPERATION, "booked");
+        return result;
+      } catch (RuntimeException e) {
+        slotClaims.release(slotId, claim);
+        if (e instanceof ServiceBusyException) {
+          instrumentation.count(OPERATION, "lane-timeout");
+        } else if (e instanceof DataAccessException || e instanceof MongoException) {
+          // write conflicts with bookings on other nodes end up here
+          instrumentation.count(OPERATION, "aborted");
+        }
+        throw e;
+      }
+    } finally {
+      instrumentation.stop(OPERATION, start);
+    }
+  }
+
+  private RuntimeException claimed() {
+    instrumentation.count(OPERATION, "claimed");
+    return new RuntimeException("Slot not available");
+  }
+}
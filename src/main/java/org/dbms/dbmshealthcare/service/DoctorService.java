@@ -5,10 +5,17 @@ import com.mongodb.client.MongoClient;
 import com.mongodb.client.TransactionBody;
 import com.mongodb.client.result.DeleteResult;
 import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.dbms.dbmshealthcare.cache.AnalyticsCache;
+import org.dbms.dbmshealthcare.cache.AnalyticsCache.Endpoint;
+import org.dbms.dbmshealthcare.cache.DirectoryCache;
+import org.dbms.dbmshealthcare.cache.SlotAvailabilityIndex;
 import org.dbms.dbmshealthcare.dto.DoctorCreateDto;
 import org.dbms.dbmshealthcare.dto.DoctorUpdateDto;
+import org.dbms.dbmshealthcare.metrics.OperationInstrumentation;
 import org.dbms.dbmshealthcare.model.Doctor;
 import org.dbms.dbmshealthcare.model.Slot;
+import org.dbms.dbmshealthcare.pojo.CursorPage;
 import org.dbms.dbmshealthcare.repository.DoctorRepository;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -19,16 +26,27 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
+@Slf4j
 public class DoctorService {
 
   private final DoctorRepository doctorRepository;
   private final MongoClient mongoClient;
   private final MongoTemplate mongoTemplate;
+  private final AnalyticsCache analyticsCache;
+  private final DirectoryCache directoryCache;
+  private final SlotAvailabilityIndex availabilityIndex;
+  private final OperationInstrumentation instrumentation;
   
-  public DoctorService(DoctorRepository doctorRepository, MongoClient mongoClient, MongoTemplate mongoTemplate) {
+  public DoctorService(DoctorRepository doctorRepository, MongoClient mongoClient,
+      MongoTemplate mongoTemplate, AnalyticsCache analyticsCache, DirectoryCache directoryCache,
+      SlotAvailabilityIndex availabilityIndex, OperationInstrumentation instrumentation) {
     this.doctorRepository = doctorRepository;
     this.mongoClient = mongoClient;
     this.mongoTemplate = mongoTemplate;
+    this.analyticsCache = analyticsCache;
+    this.directoryCache = directoryCache;
+    this.availabilityIndex = availabilityIndex;
+    this.instrumentation = instrumentation;
   }
 
   // CREATE operation
@@ -39,12 +57,12 @@ public class DoctorService {
   }
 
   // READ operations
-  public List<Doctor> getAllDoctors() {
-    return doctorRepository.findAll();
+  public CursorPage<Doctor> getAllDoctors(String cursor, Integer limit) {
+    return doctorRepository.findPage(new Query(), "_id", cursor, limit);
   }
 
   public Doctor getDoctorById(String id) {
-    return doctorRepository.findById(id);
+    return doctorRepository.findCachedById(id);
   }
 
   public Doctor getDoctorByUserId(String userId) {
@@ -81,10 +99,12 @@ public class DoctorService {
    * @return true if the transaction succeeded, false otherwise
    */
   public boolean deleteDoctor(String doctorId) {
+    long start = instrumentation.start();
+
     // Start a client session
     try (ClientSession session = mongoClient.startSession()) {
       // Begin transaction
-      TransactionBody<Boolean> txnBody = () -> {
+      TransactionBody<Long> txnBody = () -> {
         // 1. Find the doctor to make sure it exists
         Doctor doctor = getDoctorById(doctorId);
         if (doctor == null) {
@@ -92,34 +112,37 @@ public class DoctorService {
               "Doctor with ID " + doctorId + " not found");
         }
         
-        // 2. Find all slots associated with this doctor
+        // 2. Delete all slots associated with this doctor
         Query query = new Query(Criteria.where("doctor_id").is(doctorId));
-        List<Slot> slots = mongoTemplate.find(query, Slot.class);
-        
-        // Log for transaction tracking
-        System.out.println("Transaction: Found " + slots.size() + " slots for doctor " + doctorId);
-        
-        // 3. Delete all slots
         DeleteResult slotDeleteResult = mongoTemplate.remove(query, Slot.class);
-        System.out.println("Transaction: Deleted " + slotDeleteResult.getDeletedCount() + " slots");
+        instrumentation.trace("doctors.delete", "slots.deleted", slotDeleteResult.getDeletedCount());
         
-        // 4. Delete the doctor
+        // 3. Delete the doctor
         mongoTemplate.remove(
             Query.query(Criteria.where("_id").is(doctorId)), 
             Doctor.class
         );
-        System.out.println("Transaction: Deleted doctor " + doctorId);
+        instrumentation.trace("doctors.delete", "doctor", doctorId);
         
-        // Return success
-        return true;
+        // Return the number of slots removed with the doctor
+        return slotDeleteResult.getDeletedCount();
       };
       
       // Execute the transaction
-      return session.withTransaction(txnBody);
+      long slotsDeleted = session.withTransaction(txnBody);
+      // the removal bypasses the repositories, so their write hooks never see it
+      analyticsCache.invalidate(Endpoint.DOCTOR_COUNT_BY_SPECIALTY);
+      directoryCache.invalidate(Doctor.class, doctorId);
+      availabilityIndex.removeDoctor(doctorId);
+      instrumentation.count("doctors.delete", "committed");
+      instrumentation.count("doctors.delete", "slots.deleted", slotsDeleted);
+      return true;
     } catch (Exception e) {
-      System.err.println("Transaction failed: " + e.getMessage());
-      e.printStackTrace();
+      log.error("Deleting doctor {} failed: {}", doctorId, e.getMessage(), e);
+      instrumentation.count("doctors.delete", "failed");
       return false;
+    } finally {
+      instrumentation.stop("doctors.delete", start);
     }
   }
 }
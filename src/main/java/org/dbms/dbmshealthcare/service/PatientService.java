@@ -4,7 +4,9 @@ import java.util.List;
 import org.dbms.dbmshealthcare.dto.PatientCreateDto;
 import org.dbms.dbmshealthcare.dto.PatientUpdateDto;
 import org.dbms.dbmshealthcare.model.Patient;
+import org.dbms.dbmshealthcare.pojo.CursorPage;
 import org.dbms.dbmshealthcare.repository.PatientRepository;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
@@ -32,12 +34,12 @@ public class PatientService {
   }
 
   // READ operations
-  public List<Patient> getAllPatients() {
-    return patientRepository.findAll();
+  public CursorPage<Patient> getAllPatients(String cursor, Integer limit) {
+    return patientRepository.findPage(new Query(), "_id", cursor, limit);
   }
 
   public Patient getPatientById(String id) {
-    return patientRepository.findById(id);
+    return patientRepository.findCachedById(id);
   }
 
   // UPDATE operation
@@ -0,0 +1,69 @@
+package org.dbms.dbmshealthcare.service;
+
+import org.dbms.dbmshealthcare.config.ReactiveMongoTemplateResolver;
+import org.dbms.dbmshealthcare.dto.AppointmentFilter;
+import org.dbms.dbmshealthcare.dto.SlotFilter;
+import org.dbms.dbmshealthcare.model.Appointment;
+import org.dbms.dbmshealthcare.model.Slot;
+import org.dbms.dbmshealthcare.repository.ReactiveAppointmentRepository;
+import org.dbms.dbmshealthcare.repository.ReactiveSlotRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking slot and appointment browsing. Bookings go through {@link AppointmentService},
+ * which owns the booking engine, the availability index and the analytics hooks. Everything that
+ * needs the security context (the caller's identity and role) is read when the method is called,
+ * on the request thread, before the returned publisher is subscribed.
+ */
+@Service
+@ConditionalOnProperty(prefix = "mongodb.reactive", name = "enabled", havingValue = "true")
+public class ReactiveAppointmentService {
+
+  private final ReactiveSlotRepository slotRepository;
+  private final ReactiveAppointmentRepository appointmentRepository;
+  private final ReactiveMongoTemplateResolver mongoTemplateResolver;
+
+  @Value("${pagination.max-limit:500}")
+  private int maxResults;
+
+  public ReactiveAppointmentService(ReactiveSlotRepository slotRepository,
+      ReactiveAppointmentRepository appointmentRepository,
+      ReactiveMongoTemplateResolver mongoTemplateResolver) {
+    this.slotRepository = slotRepository;
+    this.appointmentRepository = appointmentRepository;
+    this.mongoTemplateResolver = mongoTemplateResolver;
+  }
+
+  public Flux<Slot> getSlots(SlotFilter filter, Integer limit) {
+    Query query = AppointmentService.buildQuery(filter)
+        .with(Sort.by("start_time", "_id"))
+        .limit(resultLimit(limit));
+    return mongoTemplateResolver.withCallerRole(slotRepository.findAll(query));
+  }
+
+  public Mono<Slot> getSlotById(String id) {
+    return mongoTemplateResolver.withCallerRole(slotRepository.findById(id));
+  }
+
+  public Flux<Appointment> getAppointments(AppointmentFilter filter, Integer limit) {
+    AppointmentService.scopeToCaller(filter);
+    Query query = AppointmentService.buildQuery(filter)
+        .with(Sort.by("slot.startTime", "_id"))
+        .limit(resultLimit(limit));
+    return mongoTemplateResolver.withCallerRole(appointmentRepository.findAll(query));
+  }
+
+  public Mono<Appointment> getAppointmentById(String id) {
+    return mongoTemplateResolver.withCallerRole(appointmentRepository.findScopedById(id));
+  }
+
+  private int resultLimit(Integer limit) {
+    return limit == null ? maxResults : Math.max(1, Math.min(limit, maxResults));
+  }
+}
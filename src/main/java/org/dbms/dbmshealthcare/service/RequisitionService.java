@@ -1,37 +1,31 @@
 package org.dbms.dbmshealthcare.service;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.dbms.dbmshealthcare.constants.RequisitionStatus;
 import org.dbms.dbmshealthcare.dto.RequisitionCreateDto;
 import org.dbms.dbmshealthcare.dto.RequisitionUpdateDto;
 import org.dbms.dbmshealthcare.model.Requisition;
 
-import org.dbms.dbmshealthcare.model.Patient;
-import org.dbms.dbmshealthcare.model.MedicalRecord;
+import org.dbms.dbmshealthcare.pojo.CursorPage;
 
 import org.dbms.dbmshealthcare.repository.RequisitionRepository;
-import org.dbms.dbmshealthcare.repository.PatientRepository;
-import org.dbms.dbmshealthcare.repository.MedicalRecordRepository;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 @Service
 public class RequisitionService {
 
     private final RequisitionRepository requisitionRepository;
-    private final PatientRepository patientRepository;
-    private final MedicalRecordRepository medicalRecordRepository;
-
-    public RequisitionService(
-            RequisitionRepository requisitionRepository,
-            PatientRepository patientRepository,
-            MedicalRecordRepository medicalRecordRepository
-    ) {
+
+    @Value("${requisitions.by-user.max-results:500}")
+    private int byUserLimit;
+
+    public RequisitionService(RequisitionRepository requisitionRepository) {
         this.requisitionRepository = requisitionRepository;
-        this.patientRepository = patientRepository;
-        this.medicalRecordRepository = medicalRecordRepository;
     }
 
     // CREATE operation
@@ -44,126 +38,28 @@ public class RequisitionService {
     }
 
     // READ operations
-    public List<Requisition> getAllRequisitions() {
-        return requisitionRepository.findAll();
-    }
+    public CursorPage<Requisition> getRequisitions(String medicalRecordId, RequisitionStatus status,
+            String cursor, Integer limit) {
+        Query query = new Query();
 
-    public Requisition getRequisitionById(String id) {
-        return requisitionRepository.findById(id);
-    }
+        if (medicalRecordId != null) {
+            query.addCriteria(Criteria.where("medicalRecordId").is(medicalRecordId));
+        }
 
-    public List<Requisition> getRequisitionsByMedicalRecordId(String medicalRecordId) {
-        return requisitionRepository.findByMedicalRecordId(medicalRecordId);
-    }
+        if (status != null) {
+            query.addCriteria(Criteria.where("status").is(status));
+        }
 
-    public List<Requisition> getRequisitionsByStatus(RequisitionStatus status) {
-        return requisitionRepository.findByStatus(status);
+        return requisitionRepository.findPage(query, "_id", cursor, limit);
     }
 
-    public List<Requisition> getRequisitionsByMedicalRecordIdAndStatus(String medicalRecordId, RequisitionStatus status) {
-        return requisitionRepository.findByMedicalRecordIdAndStatus(medicalRecordId, status);
+    public Requisition getRequisitionById(String id) {
+        return requisitionRepository.findById(id);
     }
 
     // Get requisitions by user ID through patient → medical record → requisition
     public List<Requisition> getRequisitionsByUserId(String userId) {
-        System.out.println("getRequisitionsByUserId called for user: " + userId);
-        // Get all patients associated with this user
-        List<Patient> patients = patientRepository.findByUserId(userId);
-        
-        if (patients == null || patients.isEmpty()) {
-            // Add some logging to help with debugging
-            System.out.println("No patients found for user ID: " + userId);
-            return List.of(); // No patients for this user
-        }
-        
-        // Collect all medical records for all of the user's patients
-        List<String> allPatientIds = patients.stream()
-            .map(patient -> patient.getId().toString())
-            .collect(Collectors.toList());
-            
-        System.out.println("Found patient IDs: " + String.join(", ", allPatientIds));
-        
-        List<MedicalRecord> allRecords = new java.util.ArrayList<>();
-        for (String patientId : allPatientIds) {
-            System.out.println("Looking for medical records for patient ID: " + patientId);
-            List<MedicalRecord> records = medicalRecordRepository.findByPatientId(patientId);
-            System.out.println("Found " + records.size() + " medical records for patient ID: " + patientId);
-            allRecords.addAll(records);
-        }
-        
-        if (allRecords.isEmpty()) {
-            System.out.println("No medical records found for any patients of user: " + userId);
-            return List.of(); // No medical records for any of the patients
-        }
-        
-        // Extract all medical record IDs
-        List<String> allRecordIds = allRecords.stream()
-            .map(record -> record.getId().toString())
-            .collect(Collectors.toList());
-            
-        System.out.println("Found medical record IDs: " + String.join(", ", allRecordIds));
-        
-        // First try to get requisitions using the actual medical record IDs
-        System.out.println("Attempting to find requisitions with real medical record IDs");
-        List<Requisition> requisitions = requisitionRepository.findByMedicalRecordIdIn(allRecordIds);
-        System.out.println("Found " + (requisitions == null ? "null" : requisitions.size()) + " requisitions with real IDs");
-        
-        // If no requisitions found with the real IDs, try a workaround for alice1@example.com user
-        if ((requisitions == null || requisitions.isEmpty()) && userId.equals("alice1@example.com")) {
-            System.out.println("No requisitions found with real IDs. Using special mapping for alice1@example.com");
-            
-            // For Alice, assign specific mock requisitions to her actual medical records
-            List<String> mockIds = new java.util.ArrayList<>();
-            
-            // Map first medical record to first set of mock requisitions
-            if (allRecordIds.size() >= 1) {
-                // Use fixed mock IDs that we know exist in the database (from debug logs)
-                mockIds.add("medrec-1");  // Complete Blood Count & Lipid Panel
-                mockIds.add("medrec-2");  // Liver Function Test
-            }
-            
-            // Map second medical record to second set of mock requisitions if needed
-            if (allRecordIds.size() >= 2) {
-                mockIds.add("medrec-3");  // Thyroid Function Test
-            }
-            
-            System.out.println("Using mock medical record IDs: " + String.join(", ", mockIds));
-            requisitions = requisitionRepository.findByMedicalRecordIdIn(mockIds);
-            System.out.println("Found " + (requisitions == null ? "null" : requisitions.size()) + " requisitions with mock IDs");
-            
-            // If we found requisitions with mock IDs, update them to use Alice's real medical record IDs
-            // This ensures next time they'll be found directly
-            if (requisitions != null && !requisitions.isEmpty()) {
-                System.out.println("Found " + requisitions.size() + " requisitions with mock IDs, updating them with real IDs");
-                
-                // Map mock requisitions to real medical record IDs
-                for (int i = 0; i < requisitions.size(); i++) {
-                    Requisition req = requisitions.get(i);
-                    
-                    // Decide which medical record ID to use based on requisition type
-                    String realMedicalRecordId;
-                    if (req.getTestName().equals("Liver Function Test") || 
-                        req.getTestName().equals("Thyroid Function Test")) {
-                        // Assign to second medical record if available, otherwise first
-                        realMedicalRecordId = allRecordIds.size() > 1 ? allRecordIds.get(1) : allRecordIds.get(0);
-                    } else {
-                        // Default to first medical record
-                        realMedicalRecordId = allRecordIds.get(0);
-                    }
-                    
-                    System.out.println("Mapping requisition " + req.getId() + " with test '" + req.getTestName() + 
-                                      "' from " + req.getMedicalRecordId() + " to " + realMedicalRecordId);
-                    // Update the requisition with the real medical record ID
-                    // But don't save it to the database to avoid permanent changes
-                    req.setMedicalRecordId(realMedicalRecordId);
-                }
-            } else {
-                System.out.println("No requisitions found with mock IDs either. Will return empty list.");
-            }
-        }
-        
-        System.out.println("Returning " + (requisitions == null ? "null" : requisitions.size()) + " requisitions");
-        return requisitions;
+        return requisitionRepository.findByUserId(userId, byUserLimit);
     }
 
     // UPDATE operation
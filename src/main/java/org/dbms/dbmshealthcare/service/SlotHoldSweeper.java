@@ -0,0 +1,67 @@
+package org.dbms.dbmshealthcare.service;
+
+import java.time.Instant;
+import lombok.extern.slf4j.Slf4j;
+import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
+import org.dbms.dbmshealthcare.constants.Role;
+import org.dbms.dbmshealthcare.metrics.OperationInstrumentation;
+import org.dbms.dbmshealthcare.repository.SlotRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Makes slots whose hold has expired available again, every {@code slots.holds.sweep-interval}
+ * in batches of {@code slots.holds.sweep-batch-size}. Bookings do not wait for it: an expired
+ * hold can be booked or held by anyone even before it is swept. Released holds are counted as
+ * {@code expired} under operation {@code slots.holds}. Runs on the admin template, since there is
+ * no caller whose role could pick one.
+ */
+@Component
+@Slf4j
+public class SlotHoldSweeper {
+
+  private final SlotRepository slotRepository;
+  private final MongoTemplateResolver mongoTemplateResolver;
+  private final OperationInstrumentation instrumentation;
+
+  @Value("${slots.holds.sweep-enabled:true}")
+  private boolean enabled;
+
+  @Value("${slots.holds.sweep-batch-size:500}")
+  private int batchSize;
+
+  public SlotHoldSweeper(SlotRepository slotRepository,
+      MongoTemplateResolver mongoTemplateResolver, OperationInstrumentation instrumentation) {
+    this.slotRepository = slotRepository;
+    this.mongoTemplateResolver = mongoTemplateResolver;
+    this.instrumentation = instrumentation;
+  }
+
+  @Scheduled(fixedDelayString = "${slots.holds.sweep-interval:PT15S}")
+  public void sweep() {
+    if (!enabled) {
+      return;
+    }
+
+    try {
+      Instant now = Instant.now();
+      int total = mongoTemplateResolver.runAs(Role.ADMIN, () -> {
+        int swept = 0;
+        int released;
+        do {
+          released = slotRepository.releaseExpiredHolds(now, batchSize);
+          swept += released;
+        } while (released > 0);
+        return swept;
+      });
+
+      if (total > 0) {
+        instrumentation.count("slots.holds", "expired", total);
+        log.debug("Released {} expired slot holds", total);
+      }
+    } catch (Exception e) {
+      log.warn("Failed to release expired slot holds: {}", e.getMessage());
+    }
+  }
+}
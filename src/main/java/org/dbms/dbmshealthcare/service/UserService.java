@@ -4,7 +4,9 @@ import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.dbms.dbmshealthcare.dto.UserUpdateDto;
 import org.dbms.dbmshealthcare.model.User;
+import org.dbms.dbmshealthcare.pojo.CursorPage;
 import org.dbms.dbmshealthcare.repository.UserRepository;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -31,8 +33,8 @@ public class UserService implements UserDetailsService {
     return userRepository.findById(id);
   }
 
-  public List<User> getUsers() {
-    return userRepository.findAll();
+  public CursorPage<User> getUsers(String cursor, Integer limit) {
+    return userRepository.findPage(new Query(), "_id", cursor, limit);
   }
 
   public void updateUser(String id, UserUpdateDto userUpdateDto) {
@@ -0,0 +1,75 @@
+package org.dbms.dbmshealthcare.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.dbms.dbmshealthcare.exception.InvalidCursorException;
+import org.dbms.dbmshealthcare.pojo.CursorPage;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Continuation tokens for keyset pagination. A token is the base64url-encoded extended JSON of
+ * the last returned document's sort key and _id, so BSON types (ObjectId, dates) survive the
+ * round trip to the client unchanged.
+ */
+public class CursorUtils {
+
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+  private static final String SORT_KEY = "k";
+  private static final String ID_KEY = "i";
+
+  private static final JsonWriterSettings JSON_SETTINGS = JsonWriterSettings.builder()
+      .outputMode(JsonMode.EXTENDED)
+      .build();
+
+  public static String encode(Object sortValue, Object id) {
+    String json = new Document(SORT_KEY, sortValue).append(ID_KEY, id).toJson(JSON_SETTINGS);
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static Document decode(String cursor) {
+    Document document;
+
+    try {
+      document = Document.parse(
+          new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+    } catch (RuntimeException e) {
+      throw new InvalidCursorException("Malformed cursor");
+    }
+
+    // the values end up inside a query filter, so anything but a plain scalar is rejected
+    if (!document.containsKey(ID_KEY) || !isScalar(document.get(SORT_KEY)) || !isScalar(
+        document.get(ID_KEY))) {
+      throw new InvalidCursorException("Malformed cursor");
+    }
+
+    return document;
+  }
+
+  public static Object sortValue(Document cursor) {
+    return cursor.get(SORT_KEY);
+  }
+
+  public static Object id(Document cursor) {
+    return cursor.get(ID_KEY);
+  }
+
+  public static <T> ResponseEntity<List<T>> toResponseEntity(CursorPage<T> page) {
+    ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+
+    if (page.nextCursor() != null) {
+      builder.header(NEXT_CURSOR_HEADER, page.nextCursor());
+    }
+
+    return builder.body(page.items());
+  }
+
+  private static boolean isScalar(Object value) {
+    return !(value instanceof Document) && !(value instanceof List<?>);
+  }
+}
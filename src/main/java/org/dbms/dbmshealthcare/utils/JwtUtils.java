@@ -1,14 +1,8 @@
 package org.dbms.dbmshealthcare.utils;
 
-import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.JWSHeader;
-import com.nimbusds.jose.JWSSigner;
-import com.nimbusds.jose.crypto.RSASSASigner;
-import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jwt.JWT;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
-import java.security.interfaces.RSAPrivateKey;
 import java.text.ParseException;
 import java.time.Instant;
 import java.util.Date;
@@ -17,13 +11,14 @@ import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import org.dbms.dbmshealthcare.constants.JwtType;
 import org.dbms.dbmshealthcare.model.pojo.TokenPair;
+import org.dbms.dbmshealthcare.security.TokenSigner;
 import org.springframework.stereotype.Component;
 
 @Component
 @RequiredArgsConstructor
 public class JwtUtils {
 
-  private final RSAKey rsaKey;
+  private final TokenSigner tokenSigner;
 
   public TokenPair generateToken(String sub, Map<String, Object> claims, boolean rememberMe)
       throws Exception {
@@ -46,10 +41,6 @@ public class JwtUtils {
 
   public JWT generateToken(String sub, Map<String, Object> claims, Date expiration, JwtType type)
       throws Exception {
-    RSAPrivateKey privateKey = rsaKey.toRSAPrivateKey();
-
-    JWSSigner signer = new RSASSASigner(privateKey);
-
     JWTClaimsSet.Builder builder = new JWTClaimsSet.Builder()
         .subject(sub)
         .issuer("dbms-healthcare")
@@ -63,15 +54,7 @@ public class JwtUtils {
       builder.claim("jti", UUID.randomUUID().toString());
     }
 
-    JWTClaimsSet claimsSet = builder.build();
-
-    SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(
-        JWSAlgorithm.RS256
-    ).keyID(rsaKey.getKeyID()).build(), claimsSet);
-
-    jwt.sign(signer);
-
-    return jwt;
+    return tokenSigner.sign(builder.build());
   }
 
   public JWT decodeToken(String token) throws ParseException {
@@ -0,0 +1,164 @@
+package org.dbms.dbmshealthcare.benchmark;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.client.ClientSession;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.bson.Document;
+import org.dbms.dbmshealthcare.cache.AnalyticsCache;
+import org.dbms.dbmshealthcare.cache.SlotAvailabilityIndex;
+import org.dbms.dbmshealthcare.cache.SlotClaims;
+import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
+import org.dbms.dbmshealthcare.config.TimedLock;
+import org.dbms.dbmshealthcare.config.TransactionExecutor;
+import org.dbms.dbmshealthcare.config.TransactionProperties;
+import org.dbms.dbmshealthcare.constants.SlotStatus;
+import org.dbms.dbmshealthcare.metrics.OperationInstrumentation;
+import org.dbms.dbmshealthcare.model.Appointment;
+import org.dbms.dbmshealthcare.model.Doctor;
+import org.dbms.dbmshealthcare.model.Patient;
+import org.dbms.dbmshealthcare.model.Slot;
+import org.dbms.dbmshealthcare.model.pojo.SlotBooking;
+import org.dbms.dbmshealthcare.repository.AppointmentRepository;
+import org.dbms.dbmshealthcare.repository.DoctorMonthlyStatsRepository;
+import org.dbms.dbmshealthcare.repository.DoctorRepository;
+import org.dbms.dbmshealthcare.repository.PatientRepository;
+import org.dbms.dbmshealthcare.repository.SlotRepository;
+import org.dbms.dbmshealthcare.repository.SpecialtyMonthlyStatsRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Time to book a slot in each booking mode, through the real repositories and
+ * TransactionExecutor, against a MongoDB stand-in that answers every round trip after
+ * {@code roundTripMicros}: the transactional {@code create} books the slot, saves the appointment
+ * and commits (three round trips), the embedded {@code createEmbedded} claims the slot (one; the
+ * appointment is inserted later, outside the request). With no latency the difference is what the
+ * transaction machinery costs in the application.
+ *
+ * <p>The stand-in does not model what a transaction costs in MongoDB itself (its locks, the
+ * majority-acknowledged commit, write conflicts), so this is a lower bound on the difference;
+ * measure a replica set for the rest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingModeBenchmark {
+
+  @Param({"0", "500"})
+  public long roundTripMicros;
+
+  private final AtomicLong slots = new AtomicLong();
+  private AppointmentRepository repository;
+  private TimedLock lane;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    MongoTemplate mongoTemplate = stub(MongoTemplate.class);
+    MongoDatabaseFactory databaseFactory = stub(MongoDatabaseFactory.class);
+    ClientSession session = stub(ClientSession.class);
+    when(mongoTemplate.getMongoDatabaseFactory()).thenReturn(databaseFactory);
+    when(databaseFactory.getSession(any(ClientSessionOptions.class))).thenReturn(session);
+
+    // the slot as the booking's findAndModify returns it, with the embedded booking if any
+    when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+        any(FindAndModifyOptions.class), eq(Slot.class)))
+        .thenAnswer(invocation -> roundTrip(bookedSlot(invocation.getArgument(1))));
+    when(mongoTemplate.save(any(Appointment.class)))
+        .thenAnswer(invocation -> roundTrip(invocation.getArgument(0)));
+    doAnswer(invocation -> roundTrip(null)).when(session).commitTransaction();
+
+    MongoTemplateResolver resolver = stub(MongoTemplateResolver.class);
+    when(resolver.resolveMongoTemplate()).thenReturn(mongoTemplate);
+
+    Doctor doctor = new Doctor("Dr One", "L-1", "Cardiology");
+    doctor.setId("d1");
+    DoctorRepository doctorRepository = stub(DoctorRepository.class);
+    when(doctorRepository.findCachedById("d1")).thenReturn(doctor);
+    PatientRepository patientRepository = stub(PatientRepository.class);
+    when(patientRepository.findCachedById("p1"))
+        .thenReturn(new Patient("Patient One", "PHN-1", "1 Main St"));
+
+    OperationInstrumentation instrumentation =
+        new OperationInstrumentation(new SimpleMeterRegistry());
+    SlotRepository slotRepository = new SlotRepository(resolver,
+        new SlotAvailabilityIndex(stub(MongoTemplate.class)),
+        new SlotClaims(Duration.ofSeconds(30)));
+    TransactionExecutor transactionExecutor = new TransactionExecutor(resolver, instrumentation,
+        new TransactionProperties(5, Duration.ofMillis(20), Duration.ofMillis(500), 3));
+
+    repository = new AppointmentRepository(resolver, slotRepository, doctorRepository,
+        patientRepository, stub(DoctorMonthlyStatsRepository.class),
+        stub(SpecialtyMonthlyStatsRepository.class), stub(AnalyticsCache.class),
+        transactionExecutor, instrumentation);
+    lane = new TimedLock(Duration.ofSeconds(5));
+  }
+
+  @Benchmark
+  public Appointment transactional() {
+    return repository.create("p1", nextSlot(), "checkup", lane);
+  }
+
+  @Benchmark
+  public Appointment embedded() {
+    String slotId = nextSlot();
+    return lane.call(() -> repository.createEmbedded("p1", slotId, "checkup"));
+  }
+
+  private String nextSlot() {
+    return "slot-" + slots.incrementAndGet();
+  }
+
+  // mocks that keep no record of their invocations, which would grow with every operation
+  private static <T> T stub(Class<T> type) {
+    return mock(type, withSettings().stubOnly());
+  }
+
+  private static Slot bookedSlot(Update update) {
+    Slot slot = new Slot();
+    slot.setId("s1");
+    slot.setDoctorId("d1");
+    slot.setStatus(SlotStatus.BOOKED);
+    slot.setStartTime(LocalDateTime.now().plusDays(1));
+    slot.setEndTime(slot.getStartTime().plusMinutes(30));
+    slot.setBooking((SlotBooking) update.getUpdateObject().get("$set", Document.class)
+        .get("booking"));
+    return slot;
+  }
+
+  private <T> T roundTrip(T result) {
+    if (roundTripMicros > 0) {
+      LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(roundTripMicros));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,114 @@
+package org.dbms.dbmshealthcare.benchmark;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
+import org.dbms.dbmshealthcare.constants.Role;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Cost of one template lookup, as made by every repository call: inside a request, where the
+ * role is remembered as a request attribute, outside one (scheduled work), and with the
+ * previous implementation, which allocated a SimpleGrantedAuthority per role it checked.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MongoTemplateResolverBenchmark {
+
+  @Param({"ROLE_ADMIN", "ROLE_PATIENT"})
+  public String authority;
+
+  private MongoTemplateResolver resolver;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    resolver = new MongoTemplateResolver(null, null, null, null);
+    SecurityContextHolder.getContext().setAuthentication(
+        UsernamePasswordAuthenticationToken.authenticated("user", null,
+            List.of(new SimpleGrantedAuthority("SCOPE_profile"),
+                new SimpleGrantedAuthority(authority))));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Benchmark
+  public Role withinRequest(InRequest request) {
+    return resolver.resolveRole();
+  }
+
+  @Benchmark
+  public Role outsideRequest(NoRequest noRequest) {
+    return resolver.resolveRole();
+  }
+
+  @Benchmark
+  public Role previousImplementation() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+    if (authentication != null && authentication.isAuthenticated()) {
+      Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
+
+      if (authorities.contains(new SimpleGrantedAuthority("ROLE_ADMIN"))) {
+        return Role.ADMIN;
+      } else if (authorities.contains(new SimpleGrantedAuthority("ROLE_DOCTOR"))) {
+        return Role.DOCTOR;
+      } else if (authorities.contains(new SimpleGrantedAuthority("ROLE_PATIENT"))) {
+        return Role.PATIENT;
+      }
+    }
+
+    return Role.GUEST;
+  }
+
+  @State(Scope.Thread)
+  public static class InRequest {
+
+    @Setup(Level.Iteration)
+    public void bind() {
+      RequestContextHolder.setRequestAttributes(
+          new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @TearDown(Level.Iteration)
+    public void unbind() {
+      RequestContextHolder.resetRequestAttributes();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class NoRequest {
+
+    @Setup(Level.Iteration)
+    public void unbind() {
+      RequestContextHolder.resetRequestAttributes();
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package org.dbms.dbmshealthcare.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.dbms.dbmshealthcare.metrics.OperationInstrumentation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Per-call cost of the instrumentation a repository method now does (time it, count an event,
+ * maybe trace), against the stdout line it used to print. The print goes to a discarding stream,
+ * so only string building and the PrintStream lock are measured, not the console.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperationInstrumentationBenchmark {
+
+  @Param({"true", "false"})
+  public boolean enabled;
+
+  private OperationInstrumentation instrumentation;
+  private PrintStream out;
+  private int found = 3;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    instrumentation = new OperationInstrumentation(new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(instrumentation, "enabled", enabled);
+    ReflectionTestUtils.setField(instrumentation, "traceSampleRate", 100);
+    out = new PrintStream(OutputStream.nullOutputStream());
+  }
+
+  @Benchmark
+  public void instrumented() {
+    long start = instrumentation.start();
+    instrumentation.count("patients.findByUserId", "found", found);
+    instrumentation.trace("patients.findByUserId", "found", found);
+    instrumentation.stop("patients.findByUserId", start);
+  }
+
+  @Benchmark
+  public void timed() {
+    instrumentation.stop("patients.findByUserId", instrumentation.start());
+  }
+
+  @Benchmark
+  public void counted() {
+    instrumentation.count("patients.findByUserId", "found", found);
+  }
+
+  @Benchmark
+  public void traced() {
+    instrumentation.trace("patients.findByUserId", "found", found);
+  }
+
+  @Benchmark
+  public void previousPrintln() {
+    out.println("Found patients directly by userId: " + found);
+  }
+}
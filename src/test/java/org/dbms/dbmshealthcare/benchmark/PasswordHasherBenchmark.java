@@ -0,0 +1,64 @@
+package org.dbms.dbmshealthcare.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.dbms.dbmshealthcare.config.ApplicationThreads;
+import org.dbms.dbmshealthcare.security.PasswordHasher;
+import org.dbms.dbmshealthcare.security.PasswordHashingProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * One login's password check per bcrypt cost, on the request thread as before and through the
+ * bounded hashing pool, whose hand-off is the overhead this measures.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHasherBenchmark {
+
+  @Param({"10", "12"})
+  public int cost;
+
+  private BCryptPasswordEncoder encoder;
+  private PasswordHasher hasher;
+  private String hash;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    encoder = new BCryptPasswordEncoder(cost);
+    hasher = new PasswordHasher(encoder, new PasswordHashingProperties(cost, 1, 64),
+        new SimpleMeterRegistry(), new ApplicationThreads(false));
+    hash = encoder.encode("correct horse battery staple");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    hasher.shutdown();
+  }
+
+  @Benchmark
+  public boolean onRequestThread() {
+    return encoder.matches("correct horse battery staple", hash);
+  }
+
+  @Benchmark
+  public boolean throughPool() {
+    return hasher.matches("correct horse battery staple", hash);
+  }
+}
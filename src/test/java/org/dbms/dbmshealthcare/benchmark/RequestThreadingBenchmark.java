@@ -0,0 +1,95 @@
+package org.dbms.dbmshealthcare.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.dbms.dbmshealthcare.config.ApplicationThreads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to serve a burst of {@code clients} concurrent booking-shaped requests, each making four
+ * blocking round trips on a connection from a pool of {@code connections}: on Tomcat's default
+ * 200 platform request threads, and on one virtual thread per request. Requests/s for a burst is
+ * {@code clients} divided by the reported time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestThreadingBenchmark {
+
+  // server.tomcat.threads.max default
+  private static final int TOMCAT_THREADS = 200;
+  private static final int ROUND_TRIPS = 4;
+  private static final long ROUND_TRIP_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+  @Param({"1000", "5000"})
+  public int clients;
+
+  @Param({"20", "200", "1000"})
+  public int connections;
+
+  @Param({"platform", "virtual"})
+  public String threading;
+
+  private ExecutorService executor;
+  private Semaphore pool;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    executor = threading.equals("virtual")
+        ? Executors.newThreadPerTaskExecutor(new ApplicationThreads(true).factory("request-"))
+        : Executors.newFixedThreadPool(TOMCAT_THREADS,
+            new ApplicationThreads(false).factory("request-"));
+    pool = new Semaphore(connections);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Benchmark
+  public int burst() throws InterruptedException, ExecutionException {
+    List<Future<?>> requests = new ArrayList<>(clients);
+    for (int i = 0; i < clients; i++) {
+      requests.add(executor.submit(this::request));
+    }
+    for (Future<?> request : requests) {
+      request.get();
+    }
+    return requests.size();
+  }
+
+  private Void request() throws InterruptedException {
+    for (int i = 0; i < ROUND_TRIPS; i++) {
+      pool.acquire();
+      try {
+        LockSupport.parkNanos(ROUND_TRIP_NANOS);
+      } finally {
+        pool.release();
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,81 @@
+package org.dbms.dbmshealthcare.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import java.io.File;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.dbms.dbmshealthcare.security.TokenSigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Signing one access token with the shipped key set, per algorithm, and the previous way of
+ * signing RS256 tokens, which converted the JWK and built a new signer for every token. Run from
+ * the project directory, where the key set path resolves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenSignerBenchmark {
+
+  @Param({"RS256", "ES256"})
+  public String algorithm;
+
+  private TokenSigner signer;
+  private RSAKey rsaKey;
+  private JWTClaimsSet claims;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    JWKSet jwkSet = JWKSet.load(new File("src/main/resources/keys/jwks.json"));
+    signer = new TokenSigner(jwkSet, "", algorithm);
+    rsaKey = jwkSet.getKeys().stream()
+        .filter(RSAKey.class::isInstance)
+        .map(RSAKey.class::cast)
+        .findFirst()
+        .orElseThrow();
+    claims = new JWTClaimsSet.Builder()
+        .subject("6650f0c2a1b2c3d4e5f60718")
+        .claim("roles", List.of("PATIENT"))
+        .claim("profile", Map.of("id", "6650f0c2a1b2c3d4e5f60718",
+            "role_id", "6650f0c2a1b2c3d4e5f60719"))
+        .claim("type", "ACCESS")
+        .expirationTime(new Date(System.currentTimeMillis() + 900_000))
+        .build();
+  }
+
+  @Benchmark
+  public String sign() throws JOSEException {
+    return signer.sign(claims).serialize();
+  }
+
+  @Benchmark
+  public String previousRs256PerTokenSigner() throws JOSEException {
+    SignedJWT jwt = new SignedJWT(
+        new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(rsaKey.getKeyID()).build(), claims);
+    jwt.sign(new RSASSASigner(rsaKey.toRSAPrivateKey()));
+    return jwt.serialize();
+  }
+}
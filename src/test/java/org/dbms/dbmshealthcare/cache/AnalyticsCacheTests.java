@@ -0,0 +1,70 @@
+package org.dbms.dbmshealthcare.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.dbms.dbmshealthcare.cache.AnalyticsCache.Endpoint;
+import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
+import org.dbms.dbmshealthcare.constants.Role;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+class AnalyticsCacheTests {
+
+  private final MongoTemplateResolver mongoTemplateResolver = mock(MongoTemplateResolver.class);
+  private final AnalyticsCache cache = newCache();
+  private final YearMonth month = YearMonth.of(2025, 3);
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void invalidationInsideATransactionWaitsForTheCommit() {
+    load();
+    TransactionSynchronizationManager.initSynchronization();
+
+    cache.invalidate(Endpoint.TOP_DOCTORS, month);
+    cache.invalidate(Endpoint.SPECIALTY_STATS);
+
+    // a read before the commit still sees the cached result and so does not reload stale data
+    load();
+    assertThat(loads).hasValue(1);
+
+    TransactionSynchronizationUtils.triggerAfterCommit();
+    load();
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void invalidationOutsideATransactionIsImmediate() {
+    load();
+
+    cache.invalidate(Endpoint.TOP_DOCTORS, month);
+
+    load();
+    assertThat(loads).hasValue(2);
+  }
+
+  private void load() {
+    cache.get(Endpoint.TOP_DOCTORS, month, () -> List.of(loads.incrementAndGet()));
+  }
+
+  private AnalyticsCache newCache() {
+    when(mongoTemplateResolver.resolveRole()).thenReturn(Role.ADMIN);
+    return new AnalyticsCache(new AnalyticsCacheProperties(100, Duration.ofMinutes(1), null),
+        mongoTemplateResolver, new SimpleMeterRegistry());
+  }
+}
@@ -0,0 +1,113 @@
+package org.dbms.dbmshealthcare.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.dbms.dbmshealthcare.constants.SlotStatus;
+import org.dbms.dbmshealthcare.model.Doctor;
+import org.dbms.dbmshealthcare.model.Slot;
+import org.dbms.dbmshealthcare.pojo.AvailableSlot;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+class SlotAvailabilityIndexTests {
+
+  private final SlotAvailabilityIndex index = new SlotAvailabilityIndex(mock(MongoTemplate.class));
+  private final LocalDateTime now = LocalDateTime.now();
+
+  @Test
+  void indexesOnlyFutureAvailableSlots() {
+    index.onSlotWritten(slot("s1", "d1", now.plusHours(2), SlotStatus.AVAILABLE));
+    index.onSlotWritten(slot("s2", "d1", now.plusHours(1), SlotStatus.AVAILABLE));
+    index.onSlotWritten(slot("s3", "d1", now.plusHours(3), SlotStatus.BOOKED));
+    index.onSlotWritten(slot("s4", "d1", now.minusHours(1), SlotStatus.AVAILABLE));
+
+    assertThat(index.findAvailable("d1", now, null, 10))
+        .extracting(AvailableSlot::id).containsExactly("s2", "s1");
+
+    index.onSlotWritten(slot("s2", "d1", now.plusHours(1), SlotStatus.HELD));
+
+    assertThat(index.findAvailable("d1", now, null, 10))
+        .extracting(AvailableSlot::id).containsExactly("s1");
+  }
+
+  @Test
+  void doctorWritesAreVisibleToSpecializationLookupsWithoutRebuild() {
+    index.onSlotWritten(slot("s1", "d1", now.plusHours(2), SlotStatus.AVAILABLE));
+    assertThat(index.findEarliest("Cardiology", now)).isEmpty();
+
+    index.onDoctorWritten(doctor("d1", "Cardiology"));
+    assertThat(index.findEarliest("Cardiology", now)).map(AvailableSlot::id).contains("s1");
+
+    index.onDoctorWritten(doctor("d1", "Neurology"));
+    assertThat(index.findEarliest("Cardiology", now)).isEmpty();
+    assertThat(index.findEarliest("Neurology", now)).map(AvailableSlot::id).contains("s1");
+  }
+
+  @Test
+  void removeDoctorDropsItsSlotsAndSpecialization() {
+    index.onDoctorWritten(doctor("d1", "Cardiology"));
+    index.onSlotWritten(slot("s1", "d1", now.plusHours(2), SlotStatus.AVAILABLE));
+
+    index.removeDoctor("d1");
+
+    assertThat(index.findAvailable("d1", now, null, 10)).isEmpty();
+    assertThat(index.findEarliest("Cardiology", now)).isEmpty();
+
+    // a later write of one of its slots is not shadowed by a stale entry
+    index.onSlotWritten(slot("s1", "d1", now.plusHours(2), SlotStatus.AVAILABLE));
+    assertThat(index.findAvailable("d1", now, null, 10)).hasSize(1);
+  }
+
+  @Test
+  void concurrentWritesOfTheSameSlotsLeaveOneEntryPerSlot() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+
+    for (int thread = 0; thread < 8; thread++) {
+      int seed = thread;
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < 2_000; i++) {
+          String id = "s" + ((i + seed) % 20);
+          // the same slot, alternately available at a moved start time and booked
+          SlotStatus status = (i + seed) % 3 == 0 ? SlotStatus.BOOKED : SlotStatus.AVAILABLE;
+          index.onSlotWritten(slot(id, "d1", now.plusMinutes(60 + (i % 7)), status));
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    // settle every slot, then each must be indexed exactly once
+    for (int i = 0; i < 20; i++) {
+      index.onSlotWritten(slot("s" + i, "d1", now.plusMinutes(60), SlotStatus.AVAILABLE));
+    }
+    assertThat(index.findAvailable("d1", now, null, 100))
+        .extracting(AvailableSlot::id).doesNotHaveDuplicates().hasSize(20);
+  }
+
+  private static Slot slot(String id, String doctorId, LocalDateTime start, SlotStatus status) {
+    Slot slot = new Slot();
+    slot.setId(id);
+    slot.setDoctorId(doctorId);
+    slot.setStartTime(start);
+    slot.setEndTime(start.plusMinutes(30));
+    slot.setStatus(status);
+    return slot;
+  }
+
+  private static Doctor doctor(String id, String specialization) {
+    Doctor doctor = new Doctor("Dr " + id, "L-" + id, specialization);
+    doctor.setId(id);
+    return doctor;
+  }
+}
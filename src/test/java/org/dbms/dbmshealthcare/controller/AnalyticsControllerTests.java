@@ -0,0 +1,95 @@
+package org.dbms.dbmshealthcare.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.dbms.dbmshealthcare.controller.AnalyticsController.AggregationRequest;
+import org.dbms.dbmshealthcare.service.AnalyticsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+class AnalyticsControllerTests {
+
+  private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+  @SuppressWarnings("unchecked")
+  private final AggregateIterable<Document> aggregation = mock(AggregateIterable.class);
+  @SuppressWarnings("unchecked")
+  private final MongoCursor<Document> cursor = mock(MongoCursor.class);
+  private AnalyticsController controller;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    MongoCollection<Document> collection = mock(MongoCollection.class);
+    when(mongoTemplate.getCollection("appointments")).thenReturn(collection);
+    when(collection.aggregate(anyList())).thenReturn(aggregation);
+    when(aggregation.allowDiskUse(any())).thenReturn(aggregation);
+    when(aggregation.batchSize(anyInt())).thenReturn(aggregation);
+    when(aggregation.maxTime(anyLong(), any(TimeUnit.class))).thenReturn(aggregation);
+    when(aggregation.cursor()).thenReturn(cursor);
+
+    controller = new AnalyticsController(mongoTemplate, mock(AnalyticsService.class));
+    ReflectionTestUtils.setField(controller, "aggregateBatchSize", 2);
+    ReflectionTestUtils.setField(controller, "aggregateMaxRows", 100);
+    ReflectionTestUtils.setField(controller, "aggregateMaxTime", Duration.ofSeconds(1));
+  }
+
+  @Test
+  void pipelinesEndingInOutOrMergeAreRejectedBeforeRunning() {
+    for (String stage : List.of("{$out: 'copy'}", "{$merge: {into: 'copy'}}")) {
+      ResponseEntity<?> response = controller.streamAggregation(
+          request("[{$match: {}}, " + stage + "]"));
+
+      assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+    verifyNoInteractions(mongoTemplate);
+  }
+
+  @Test
+  void failureAfterStreamingStartedEndsWithAnErrorLine() throws Exception {
+    when(cursor.hasNext()).thenReturn(true, true, true);
+    when(cursor.next()).thenReturn(new Document("n", 1), new Document("n", 2))
+        .thenThrow(new MongoExecutionTimeoutException(50, "operation exceeded time limit"));
+
+    ResponseEntity<?> response = controller.streamAggregation(request("[{$match: {}}]"));
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ((StreamingResponseBody) response.getBody()).writeTo(output);
+
+    List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+    assertThat(lines).hasSize(3);
+    assertThat(lines.subList(0, 2)).containsExactly("{\"n\": 1}", "{\"n\": 2}");
+    Document error = Document.parse(lines.get(2));
+    assertThat(error.getString("error")).isEqualTo("Failed to execute aggregation");
+    assertThat(error.get("rows", Number.class).longValue()).isEqualTo(2);
+    verify(cursor).close();
+  }
+
+  private static AggregationRequest request(String pipeline) {
+    AggregationRequest request = new AggregationRequest();
+    request.setCollection("appointments");
+    request.setPipeline(pipeline);
+    return request;
+  }
+}
@@ -0,0 +1,217 @@
+package org.dbms.dbmshealthcare.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.dbms.dbmshealthcare.support.TestSupport.authenticateAs;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.bulk.BulkWriteResult;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.bson.Document;
+import org.dbms.dbmshealthcare.cache.AnalyticsCache;
+import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
+import org.dbms.dbmshealthcare.config.TransactionExecutor;
+import org.dbms.dbmshealthcare.constants.AppointmentStatus;
+import org.dbms.dbmshealthcare.exception.EntityNotFoundException;
+import org.dbms.dbmshealthcare.metrics.OperationInstrumentation;
+import org.dbms.dbmshealthcare.model.Appointment;
+import org.dbms.dbmshealthcare.model.Doctor;
+import org.dbms.dbmshealthcare.model.pojo.SlotDetails;
+import org.dbms.dbmshealthcare.pojo.AppointmentStatusChangeResult;
+import org.dbms.dbmshealthcare.pojo.AppointmentStatusChangeResult.Outcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class AppointmentRepositoryTests {
+
+  private static final LocalDateTime START = LocalDateTime.of(2026, 11, 3, 9, 0);
+
+  private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+  private final BulkOperations bulk = mock(BulkOperations.class);
+  private final SlotRepository slotRepository = mock(SlotRepository.class);
+  private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+  private final DoctorMonthlyStatsRepository doctorStats = mock(DoctorMonthlyStatsRepository.class);
+  private final SpecialtyMonthlyStatsRepository specialtyStats =
+      mock(SpecialtyMonthlyStatsRepository.class);
+  private AppointmentRepository repository;
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    MongoTemplateResolver resolver = mock(MongoTemplateResolver.class);
+    when(resolver.resolveMongoTemplate()).thenReturn(mongoTemplate);
+    when(mongoTemplate.bulkOps(BulkMode.UNORDERED, Appointment.class)).thenReturn(bulk);
+
+    TransactionExecutor transactionExecutor = mock(TransactionExecutor.class);
+    when(transactionExecutor.execute(anyString(), any(Supplier.class)))
+        .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
+    Doctor doctor = new Doctor("Dr One", "L-1", "Cardiology");
+    doctor.setId("d1");
+    when(doctorRepository.findCachedById("d1")).thenReturn(doctor);
+    when(doctorRepository.findCachedByIds(anyCollection())).thenReturn(Map.of("d1", doctor));
+
+    repository = new AppointmentRepository(resolver, slotRepository, doctorRepository,
+        mock(PatientRepository.class), doctorStats, specialtyStats, mock(AnalyticsCache.class),
+        transactionExecutor, mock(OperationInstrumentation.class));
+  }
+
+  @Test
+  void batchReportsOneOutcomePerChangeInRequestOrder() {
+    authenticateAs("PATIENT", "p1");
+    Appointment approving = appointment("a1", "p1", AppointmentStatus.PENDING_APPROVAL);
+    Appointment cancelling = appointment("a2", "p1", AppointmentStatus.APPROVED);
+    cancelling.setApprovedSpecialization("Neurology");
+    Appointment unchanged = appointment("a4", "p1", AppointmentStatus.PENDING_APPROVAL);
+    Appointment finished = appointment("a6", "p1", AppointmentStatus.CANCELLED);
+    when(mongoTemplate.find(any(Query.class), eq(Appointment.class)))
+        .thenReturn(List.of(approving, cancelling, unchanged, finished));
+    when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(0, 3, 0, 3, List.of(),
+        List.of()));
+    when(slotRepository.releaseAll(anyMap())).thenReturn(Set.of("slot-a2"));
+
+    Map<String, AppointmentStatus> changes = new LinkedHashMap<>();
+    changes.put("a1", AppointmentStatus.APPROVED);
+    changes.put("a2", AppointmentStatus.CANCELLED);
+    changes.put("a3", AppointmentStatus.CANCELLED);
+    changes.put("a4", AppointmentStatus.PENDING_APPROVAL);
+    changes.put("a5", AppointmentStatus.APPROVED);
+    changes.put("a6", AppointmentStatus.REJECTED);
+
+    List<AppointmentStatusChangeResult> results = repository.updateStatuses(changes);
+
+    // a3 belongs to p2, so the scoped read does not return it
+    verify(mongoTemplate).find(Query.query(new Criteria().andOperator(
+        Criteria.where("_id").in(changes.keySet()), Criteria.where("patient_id").is("p1"))),
+        Appointment.class);
+    assertThat(results).containsExactly(
+        new AppointmentStatusChangeResult("a1", Outcome.UPDATED, null),
+        new AppointmentStatusChangeResult("a2", Outcome.UPDATED, "slot-a2"),
+        new AppointmentStatusChangeResult("a3", Outcome.NOT_FOUND, null),
+        new AppointmentStatusChangeResult("a4", Outcome.UNCHANGED, null),
+        new AppointmentStatusChangeResult("a5", Outcome.NOT_FOUND, null),
+        new AppointmentStatusChangeResult("a6", Outcome.UPDATED, null));
+
+    // each write is guarded by the status that was read
+    verify(bulk).updateOne(eq(Query.query(Criteria.where("_id").is("a1")
+        .and("status").is(AppointmentStatus.PENDING_APPROVAL))), any(Update.class));
+    // only the appointment leaving an active state gives its slot back
+    verify(slotRepository).releaseAll(Map.of("slot-a2", "a2"));
+
+    // the approval is counted under the doctor's specialization, the cancellation under the
+    // one stored when it was approved
+    YearMonth month = YearMonth.from(START);
+    verify(specialtyStats).increment(month, "Cardiology", 1);
+    verify(specialtyStats).increment(month, "Neurology", -1);
+  }
+
+  @Test
+  void approvalStoresTheSpecializationInTheSameScopedWrite() {
+    authenticateAs("DOCTOR", "d1");
+    Appointment pending = appointment("a1", "p1", AppointmentStatus.PENDING_APPROVAL);
+    when(mongoTemplate.findOne(any(Query.class), eq(Appointment.class))).thenReturn(pending);
+    when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+        any(FindAndModifyOptions.class), eq(Appointment.class))).thenReturn(pending);
+
+    repository.update("a1", AppointmentStatus.APPROVED, null);
+
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate).findAndModify(eq(Query.query(new Criteria().andOperator(
+            Criteria.where("_id").is("a1").and("status").is(AppointmentStatus.PENDING_APPROVAL),
+            Criteria.where("doctor_id").is("d1")))),
+        update.capture(), any(FindAndModifyOptions.class), eq(Appointment.class));
+    assertThat(update.getValue().getUpdateObject().get("$set", Document.class))
+        .containsEntry("status", AppointmentStatus.APPROVED)
+        .containsEntry("approved_specialization", "Cardiology");
+    verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class),
+        eq(Appointment.class));
+    verify(specialtyStats).increment(YearMonth.from(START), "Cardiology", 1);
+  }
+
+  @Test
+  void batchAbortsWhenAnAppointmentChangedAfterItWasRead() {
+    authenticateAs("ADMIN", "a1");
+    when(mongoTemplate.find(any(Query.class), eq(Appointment.class)))
+        .thenReturn(List.of(appointment("a1", "p1", AppointmentStatus.APPROVED)));
+    when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(),
+        List.of()));
+
+    assertThatThrownBy(() -> repository.updateStatuses(
+        Map.of("a1", AppointmentStatus.CANCELLED)))
+        .isInstanceOf(OptimisticLockingFailureException.class);
+
+    verify(slotRepository, never()).releaseAll(anyMap());
+    verify(doctorStats, never()).increment(any(), anyString(), anyString(), anyString(),
+        anyLong());
+  }
+
+  @Test
+  void patientGetsNotFoundForAnotherPatientsAppointment() {
+    authenticateAs("PATIENT", "p2");
+    Query scoped = Query.query(new Criteria().andOperator(Criteria.where("_id").is("a1"),
+        Criteria.where("patient_id").is("p2")));
+    // a1 belongs to p1, so nothing matches the scoped query
+    when(mongoTemplate.findOne(any(Query.class), eq(Appointment.class))).thenReturn(null);
+
+    assertThatThrownBy(() -> repository.findScopedById("a1"))
+        .isInstanceOf(EntityNotFoundException.class);
+    assertThatThrownBy(() -> repository.deleteScoped("a1"))
+        .isInstanceOf(EntityNotFoundException.class);
+
+    verify(mongoTemplate).findOne(scoped, Appointment.class);
+    verify(mongoTemplate).findAndRemove(scoped, Appointment.class);
+    verify(slotRepository, never()).update(anyString(), any(Criteria.class), any(Update.class));
+  }
+
+  @Test
+  void doctorQueriesAreScopedToTheirOwnAppointments() {
+    authenticateAs("DOCTOR", "d2");
+
+    assertThatThrownBy(() -> repository.updateScoped("a1",
+        new Update().set("status", AppointmentStatus.APPROVED)))
+        .isInstanceOf(EntityNotFoundException.class);
+
+    verify(mongoTemplate).findAndModify(eq(Query.query(new Criteria().andOperator(
+            Criteria.where("_id").is("a1"), Criteria.where("doctor_id").is("d2")))),
+        any(Update.class), any(FindAndModifyOptions.class), eq(Appointment.class));
+  }
+
+  private static Appointment appointment(String id, String patientId, AppointmentStatus status) {
+    Appointment appointment = new Appointment(patientId, "d1", "Patient " + patientId, "Dr One",
+        new SlotDetails("slot-" + id, START, START.plusMinutes(30)), "checkup");
+    appointment.setId(id);
+    appointment.setStatus(status);
+    return appointment;
+  }
+}
@@ -0,0 +1,164 @@
+package org.dbms.dbmshealthcare.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.dbms.dbmshealthcare.support.TestSupport.matches;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
+import org.dbms.dbmshealthcare.exception.InvalidCursorException;
+import org.dbms.dbmshealthcare.model.Slot;
+import org.dbms.dbmshealthcare.pojo.CursorPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Keyset pagination walked over an in-memory collection that applies the filter, sort and limit
+ * findPage sends, the way MongoDB would.
+ */
+class BaseMongoRepositoryTests {
+
+  private final List<Document> documents = new ArrayList<>();
+  private final List<Integer> limits = new ArrayList<>();
+  private BaseMongoRepository<Slot> repository;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+    MappingMongoConverter converter =
+        new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    converter.setCustomConversions(conversions);
+    converter.afterPropertiesSet();
+
+    MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    MongoCollection<Document> collection = mock(MongoCollection.class);
+    when(mongoTemplate.getConverter()).thenReturn(converter);
+    when(mongoTemplate.getCollectionName(Slot.class)).thenReturn("slots");
+    when(mongoTemplate.getCollection("slots")).thenReturn(collection);
+    when(collection.find(any(Bson.class))).thenAnswer(invocation -> {
+      Document filter = invocation.getArgument(0);
+      return findIterable(documents.stream().filter(document -> matches(document::get, filter))
+          .sorted(Comparator.comparing((Document document) -> document.getDate("start_time"),
+                  Comparator.nullsFirst(Comparator.naturalOrder()))
+              .thenComparing(document -> document.getObjectId("_id")))
+          .toList());
+    });
+
+    MongoTemplateResolver resolver = mock(MongoTemplateResolver.class);
+    when(resolver.resolveMongoTemplate()).thenReturn(mongoTemplate);
+    repository = new BaseMongoRepository<>(resolver, Slot.class) { };
+    ReflectionTestUtils.setField(repository, "defaultPageSize", 2);
+    ReflectionTestUtils.setField(repository, "maxPageSize", 3);
+  }
+
+  @Test
+  void pagesCoverEveryDocumentOnceAcrossTiedAndMissingSortKeys() {
+    Date nine = new Date(1_790_000_000_000L);
+    Date ten = new Date(1_790_003_600_000L);
+    List<ObjectId> expected = List.of(
+        add(null), add(null), add(nine), add(nine), add(nine), add(ten), add(ten));
+
+    List<ObjectId> seen = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      CursorPage<Slot> page = repository.findPage(new Query(), "start_time", cursor, null);
+      page.items().forEach(slot -> seen.add(new ObjectId(slot.getId())));
+      cursor = page.nextCursor();
+      pages++;
+    } while (cursor != null);
+
+    assertThat(seen).containsExactlyElementsOf(expected);
+    assertThat(pages).isEqualTo(4);
+  }
+
+  @Test
+  void lastFullPageHasNoCursor() {
+    add(new Date(1_790_000_000_000L));
+    add(new Date(1_790_003_600_000L));
+
+    CursorPage<Slot> page = repository.findPage(new Query(), "start_time", null, null);
+
+    assertThat(page.items()).hasSize(2);
+    assertThat(page.nextCursor()).isNull();
+  }
+
+  @Test
+  void requestedLimitIsCappedAndReadsOneExtraDocument() {
+    for (int i = 0; i < 5; i++) {
+      add(new Date(1_790_000_000_000L + i));
+    }
+
+    assertThat(repository.findPage(new Query(), "start_time", null, 50).items()).hasSize(3);
+    assertThat(repository.findPage(new Query(), "start_time", null, 0).items()).hasSize(1);
+    assertThat(limits).containsExactly(4, 2);
+  }
+
+  @Test
+  void malformedCursorIsRejected() {
+    assertThatThrownBy(() -> repository.findPage(new Query(), "start_time", "%%%", null))
+        .isInstanceOf(InvalidCursorException.class);
+  }
+
+  private ObjectId add(Date startTime) {
+    ObjectId id = new ObjectId();
+    Document document = new Document("_id", id).append("doctor_id", "d1");
+    if (startTime != null) {
+      document.append("start_time", startTime);
+    }
+    documents.add(document);
+    return id;
+  }
+
+  @SuppressWarnings("unchecked")
+  private FindIterable<Document> findIterable(List<Document> sorted) {
+    FindIterable<Document> iterable = mock(FindIterable.class);
+    List<Document> page = new ArrayList<>(sorted);
+    when(iterable.sort(any(Bson.class))).thenAnswer(invocation -> {
+      assertThat((Document) invocation.getArgument(0))
+          .isEqualTo(new Document("start_time", 1).append("_id", 1));
+      return iterable;
+    });
+    when(iterable.limit(anyInt())).thenAnswer(invocation -> {
+      int limit = invocation.getArgument(0);
+      limits.add(limit);
+      page.subList(Math.min(limit, page.size()), page.size()).clear();
+      return iterable;
+    });
+    when(iterable.batchSize(anyInt())).thenReturn(iterable);
+    when(iterable.iterator()).thenAnswer(invocation -> cursorOver(page.iterator()));
+    return iterable;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static MongoCursor<Document> cursorOver(Iterator<Document> iterator) {
+    MongoCursor<Document> cursor = mock(MongoCursor.class);
+    when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+    when(cursor.next()).thenAnswer(invocation -> iterator.next());
+    return cursor;
+  }
+}
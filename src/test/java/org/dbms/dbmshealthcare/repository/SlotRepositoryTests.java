@@ -0,0 +1,298 @@
+package org.dbms.dbmshealthcare.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.dbms.dbmshealthcare.support.TestSupport.authenticateAs;
+import static org.dbms.dbmshealthcare.support.TestSupport.matches;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.dbms.dbmshealthcare.cache.SlotAvailabilityIndex;
+import org.dbms.dbmshealthcare.cache.SlotClaims;
+import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
+import org.dbms.dbmshealthcare.constants.AppointmentStatus;
+import org.dbms.dbmshealthcare.constants.SlotStatus;
+import org.dbms.dbmshealthcare.exception.EntityNotFoundException;
+import org.dbms.dbmshealthcare.model.Slot;
+import org.dbms.dbmshealthcare.model.pojo.SlotBooking;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Hold, expiry, booking and ownership checks run against an in-memory collection that evaluates
+ * the repository's criteria and updates the way MongoDB would.
+ */
+class SlotRepositoryTests {
+
+  private static final Duration TTL = Duration.ofMinutes(5);
+  private static final Instant NOW = Instant.now();
+
+  private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+  private final SlotAvailabilityIndex availabilityIndex = mock(SlotAvailabilityIndex.class);
+  private final Map<String, Slot> slots = new LinkedHashMap<>();
+  private SlotRepository repository;
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @BeforeEach
+  void setUp() {
+    MongoTemplateResolver resolver = mock(MongoTemplateResolver.class);
+    when(resolver.resolveMongoTemplate()).thenReturn(mongoTemplate);
+
+    when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+        any(FindAndModifyOptions.class), eq(Slot.class))).thenAnswer(invocation -> {
+          Slot slot = findFirst(invocation.getArgument(0));
+          if (slot != null) {
+            apply(slot, invocation.getArgument(1));
+          }
+          return slot;
+        });
+    when(mongoTemplate.findOne(any(Query.class), eq(Slot.class)))
+        .thenAnswer(invocation -> findFirst(invocation.getArgument(0)));
+    when(mongoTemplate.findAndRemove(any(Query.class), eq(Slot.class))).thenAnswer(invocation -> {
+      Slot slot = findFirst(invocation.getArgument(0));
+      if (slot != null) {
+        slots.remove(slot.getId());
+      }
+      return slot;
+    });
+    when(mongoTemplate.count(any(Query.class), eq(Slot.class)))
+        .thenAnswer(invocation -> (long) find(invocation.getArgument(0)).size());
+    when(mongoTemplate.find(any(Query.class), eq(Slot.class)))
+        .thenAnswer(invocation -> find(invocation.getArgument(0)));
+    when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Slot.class)))
+        .thenAnswer(invocation -> {
+          List<Slot> matched = find(invocation.getArgument(0));
+          matched.forEach(slot -> apply(slot, invocation.getArgument(1)));
+          return UpdateResult.acknowledged(matched.size(), (long) matched.size(), null);
+        });
+
+    repository = new SlotRepository(resolver, availabilityIndex, mock(SlotClaims.class));
+    slot("s1");
+    slot("s2");
+  }
+
+  @Test
+  void heldSlotCannotBeHeldOrBookedByAnotherPatient() {
+    assertThat(repository.hold("s1", "p1", NOW, TTL)).isNotNull();
+
+    assertThat(repository.hold("s1", "p2", NOW, TTL)).isNull();
+    assertThat(repository.book("s1", "p2", "a2")).isNull();
+    assertThat(slots.get("s1").getHeldBy()).isEqualTo("p1");
+  }
+
+  @Test
+  void holdingAgainKeepsTheOriginalExpiry() {
+    repository.hold("s1", "p1", NOW, TTL);
+
+    Slot again = repository.hold("s1", "p1", NOW.plus(Duration.ofMinutes(4)), TTL);
+
+    assertThat(again.getHoldExpiresAt()).isEqualTo(NOW.plus(TTL));
+    assertThat(slots.get("s1").getHoldExpiresAt()).isEqualTo(NOW.plus(TTL));
+  }
+
+  @Test
+  void expiredHoldCanBeTakenOverAndIsNotReturnedToItsHolder() {
+    Instant past = Instant.now().minus(Duration.ofHours(1));
+    repository.hold("s1", "p1", past, TTL);
+
+    assertThat(repository.hold("s1", "p2", Instant.now(), TTL)).isNotNull();
+    assertThat(slots.get("s1").getHeldBy()).isEqualTo("p2");
+    assertThat(repository.hold("s1", "p1", Instant.now(), TTL)).isNull();
+  }
+
+  @Test
+  void holderBooksTheirHoldAndTheHoldIsCleared() {
+    repository.hold("s1", "p1", NOW, TTL);
+
+    assertThat(repository.book("s1", "p1", "a1")).isNotNull();
+
+    Slot booked = slots.get("s1");
+    assertThat(booked.getStatus()).isEqualTo(SlotStatus.BOOKED);
+    assertThat(booked.getHeldBy()).isNull();
+    assertThat(booked.getHoldExpiresAt()).isNull();
+    assertThat(repository.hold("s1", "p1", NOW, TTL)).isNull();
+  }
+
+  @Test
+  void onlyTheAppointmentHoldingTheBookingReleasesTheSlot() {
+    repository.book("s1", "p1", "a1");
+    assertThat(repository.release("s1", "a1")).isNotNull();
+    repository.book("s1", "p2", "a2");
+
+    assertThat(repository.release("s1", "a1")).isNull();
+    assertThat(slots.get("s1").getStatus()).isEqualTo(SlotStatus.BOOKED);
+    assertThat(slots.get("s1").getAppointmentId()).isEqualTo("a2");
+  }
+
+  @Test
+  void slotBookedBeforeAppointmentIdsWereRecordedIsStillReleased() {
+    slots.get("s1").setStatus(SlotStatus.BOOKED);
+    slots.get("s2").setStatus(SlotStatus.BOOKED);
+    slots.get("s2").setBooking(new SlotBooking("a2", "p1", "Patient One", "checkup",
+        AppointmentStatus.PENDING_APPROVAL, NOW));
+
+    assertThat(repository.release("s1", "a1")).isNotNull();
+    assertThat(slots.get("s1").getStatus()).isEqualTo(SlotStatus.AVAILABLE);
+
+    // an embedded booking still says which appointment may release the slot
+    assertThat(repository.release("s2", "a1")).isNull();
+    assertThat(repository.release("s2", "a2")).isNotNull();
+  }
+
+  @Test
+  void sweepReleasesOnlyExpiredHolds() {
+    Instant past = Instant.now().minus(Duration.ofHours(1));
+    repository.hold("s1", "p1", past, TTL);
+    repository.hold("s2", "p1", Instant.now(), TTL);
+
+    assertThat(repository.releaseExpiredHolds(Instant.now(), 10)).isEqualTo(1);
+
+    assertThat(slots.get("s1").getStatus()).isEqualTo(SlotStatus.AVAILABLE);
+    assertThat(slots.get("s1").getHeldBy()).isNull();
+    assertThat(slots.get("s2").getStatus()).isEqualTo(SlotStatus.HELD);
+  }
+
+  @Test
+  void activeHoldsCountExcludesExpiredHoldsAndTheGivenSlot() {
+    repository.hold("s1", "p1", Instant.now().minus(Duration.ofHours(1)), TTL);
+    repository.hold("s2", "p1", NOW, TTL);
+
+    assertThat(repository.countActiveHolds("p1", NOW, "s3")).isEqualTo(1);
+    assertThat(repository.countActiveHolds("p1", NOW, "s2")).isZero();
+    assertThat(repository.countActiveHolds("p2", NOW, "s3")).isZero();
+  }
+
+  @Test
+  void slotsRefusedByTheUniqueIndexAreNotReportedAsInserted() {
+    BulkOperations bulk = mock(BulkOperations.class);
+    when(mongoTemplate.bulkOps(BulkMode.UNORDERED, Slot.class)).thenReturn(bulk);
+    when(bulk.insert(anyList())).thenReturn(bulk);
+    BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key error",
+        new BsonDocument(), 1);
+    when(bulk.execute()).thenThrow(new BulkOperationException("duplicate",
+        new MongoBulkWriteException(BulkWriteResult.acknowledged(2, 0, 0, 0, List.of(), List.of()),
+            List.of(duplicate), null, new ServerAddress(), Set.of())));
+
+    List<Slot> batch = List.of(newSlot(), newSlot(), newSlot());
+
+    assertThat(repository.insertUnordered(batch, 10)).isEqualTo(2);
+    verify(availabilityIndex).onSlotWritten(batch.get(0));
+    verify(availabilityIndex, never()).onSlotWritten(batch.get(1));
+    verify(availabilityIndex).onSlotWritten(batch.get(2));
+  }
+
+  @Test
+  void doctorCannotReachAnotherDoctorsSlot() {
+    authenticateAs("DOCTOR", "d2");
+
+    assertThatThrownBy(() -> repository.findScopedById("s1"))
+        .isInstanceOf(EntityNotFoundException.class);
+    assertThatThrownBy(() -> repository.updateScoped("s1",
+        new Update().set("status", SlotStatus.BOOKED)))
+        .isInstanceOf(EntityNotFoundException.class);
+    assertThatThrownBy(() -> repository.deleteScoped("s1"))
+        .isInstanceOf(EntityNotFoundException.class);
+
+    assertThat(slots.get("s1").getStatus()).isEqualTo(SlotStatus.AVAILABLE);
+  }
+
+  @Test
+  void ownerAndAdminReachTheSlot() {
+    authenticateAs("DOCTOR", "d1");
+    assertThat(repository.findScopedById("s1").getId()).isEqualTo("s1");
+    assertThat(repository.deleteScoped("s1").getId()).isEqualTo("s1");
+
+    authenticateAs("ADMIN", "a1");
+    assertThat(repository.deleteScoped("s2").getId()).isEqualTo("s2");
+    assertThat(slots).isEmpty();
+  }
+
+  private static Slot newSlot() {
+    Slot slot = new Slot();
+    slot.setDoctorId("d1");
+    return slot;
+  }
+
+  private void slot(String id) {
+    Slot slot = new Slot();
+    slot.setId(id);
+    slot.setDoctorId("d1");
+    slots.put(id, slot);
+  }
+
+  private Slot findFirst(Query query) {
+    List<Slot> matched = find(query);
+    return matched.isEmpty() ? null : matched.get(0);
+  }
+
+  private List<Slot> find(Query query) {
+    return slots.values().stream().filter(slot -> matches(name -> field(slot, name), query.getQueryObject())).toList();
+  }
+
+  private static Object field(Slot slot, String name) {
+    return switch (name) {
+      case "_id" -> slot.getId();
+      case "doctor_id" -> slot.getDoctorId();
+      case "status" -> slot.getStatus();
+      case "held_by" -> slot.getHeldBy();
+      case "hold_expires_at" -> slot.getHoldExpiresAt();
+      case "appointment_id" -> slot.getAppointmentId();
+      case "booking.appointmentId" ->
+          slot.getBooking() == null ? null : slot.getBooking().appointmentId();
+      default -> throw new IllegalArgumentException("Unsupported field " + name);
+    };
+  }
+
+  private static void apply(Slot slot, Update update) {
+    Document updates = update.getUpdateObject();
+    ((Document) updates.getOrDefault("$set", new Document())).forEach((name, value) -> {
+      switch (name) {
+        case "status" -> slot.setStatus((SlotStatus) value);
+        case "held_by" -> slot.setHeldBy((String) value);
+        case "hold_expires_at" -> slot.setHoldExpiresAt((Instant) value);
+        case "appointment_id" -> slot.setAppointmentId((String) value);
+        default -> throw new IllegalArgumentException("Unsupported field " + name);
+      }
+    });
+    ((Document) updates.getOrDefault("$unset", new Document())).keySet().forEach(name -> {
+      switch (name) {
+        case "held_by" -> slot.setHeldBy(null);
+        case "hold_expires_at" -> slot.setHoldExpiresAt(null);
+        case "appointment_id" -> slot.setAppointmentId(null);
+        case "booking" -> slot.setBooking(null);
+        default -> throw new IllegalArgumentException("Unsupported field " + name);
+      }
+    });
+  }
+}
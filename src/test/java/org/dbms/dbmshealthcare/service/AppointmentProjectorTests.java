@@ -0,0 +1,56 @@
+package org.dbms.dbmshealthcare.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.dbms.dbmshealthcare.config.MongoTemplateResolver;
+import org.dbms.dbmshealthcare.constants.BookingMode;
+import org.dbms.dbmshealthcare.constants.Role;
+import org.dbms.dbmshealthcare.metrics.OperationInstrumentation;
+import org.dbms.dbmshealthcare.model.Appointment;
+import org.dbms.dbmshealthcare.repository.AppointmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class AppointmentProjectorTests {
+
+  private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+  private final MongoTemplateResolver resolver = new MongoTemplateResolver(
+      mock(MongoTemplate.class), mock(MongoTemplate.class), mock(MongoTemplate.class),
+      mock(MongoTemplate.class));
+  private final List<Role> rolesUsed = new ArrayList<>();
+  private AppointmentProjector projector;
+
+  @BeforeEach
+  void setUp() {
+    doAnswer(invocation -> rolesUsed.add(resolver.resolveRole()))
+        .when(appointmentRepository).insertProjected(any(Appointment.class));
+    when(appointmentRepository.findUnprojected(any(Instant.class))).thenAnswer(invocation -> {
+      rolesUsed.add(resolver.resolveRole());
+      return List.of(mock(Appointment.class));
+    });
+
+    projector = new AppointmentProjector(appointmentRepository, resolver,
+        mock(OperationInstrumentation.class));
+    ReflectionTestUtils.setField(projector, "bookingMode", BookingMode.EMBEDDED);
+    ReflectionTestUtils.setField(projector, "lookback", Duration.ofHours(1));
+  }
+
+  @Test
+  void projectionAndReconciliationRunOnTheAdminTemplate() {
+    projector.project(mock(Appointment.class));
+    projector.reconcile();
+
+    assertThat(rolesUsed).containsExactly(Role.ADMIN, Role.ADMIN, Role.ADMIN);
+    assertThat(resolver.resolveRole()).isEqualTo(Role.GUEST);
+  }
+}
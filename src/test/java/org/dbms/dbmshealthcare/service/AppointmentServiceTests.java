@@ -0,0 +1,90 @@
+package org.dbms.dbmshealthcare.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.dbms.dbmshealthcare.support.TestSupport.authenticateAs;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.dbms.dbmshealthcare.cache.SlotAvailabilityIndex;
+import org.dbms.dbmshealthcare.constants.SlotStatus;
+import org.dbms.dbmshealthcare.exception.HoldLimitExceededException;
+import org.dbms.dbmshealthcare.exception.UnauthorizedOperationException;
+import org.dbms.dbmshealthcare.model.Slot;
+import org.dbms.dbmshealthcare.repository.AppointmentRepository;
+import org.dbms.dbmshealthcare.repository.DoctorRepository;
+import org.dbms.dbmshealthcare.repository.SlotRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class AppointmentServiceTests {
+
+  private final SlotRepository slotRepository = mock(SlotRepository.class);
+  private AppointmentService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new AppointmentService(slotRepository, mock(AppointmentRepository.class),
+        mock(BookingEngine.class), mock(SlotAvailabilityIndex.class),
+        mock(DoctorRepository.class), mock(AppointmentProjector.class));
+    ReflectionTestUtils.setField(service, "holdTtl", Duration.ofMinutes(5));
+    ReflectionTestUtils.setField(service, "maxHoldsPerPatient", 2);
+  }
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void onlyPatientsCanHoldSlots() {
+    authenticateAs("DOCTOR", "d1");
+
+    assertThatThrownBy(() -> service.holdSlot("s1"))
+        .isInstanceOf(UnauthorizedOperationException.class);
+    verifyNoInteractions(slotRepository);
+  }
+
+  @Test
+  void holdWithinTheLimitIsKept() {
+    authenticateAs("PATIENT", "p1");
+    Slot held = heldSlot("s1", "p1");
+    when(slotRepository.hold(eq("s1"), eq("p1"), any(Instant.class), eq(Duration.ofMinutes(5))))
+        .thenReturn(held);
+    when(slotRepository.countActiveHolds(eq("p1"), any(Instant.class), eq("s1"))).thenReturn(1L);
+
+    assertThat(service.holdSlot("s1")).isSameAs(held);
+    verify(slotRepository, never()).releaseHold(anyString(), anyString());
+  }
+
+  @Test
+  void holdBeyondTheLimitIsReleasedAndRejected() {
+    authenticateAs("PATIENT", "p1");
+    when(slotRepository.hold(eq("s3"), eq("p1"), any(Instant.class), any(Duration.class)))
+        .thenReturn(heldSlot("s3", "p1"));
+    when(slotRepository.countActiveHolds(eq("p1"), any(Instant.class), eq("s3"))).thenReturn(2L);
+
+    assertThatThrownBy(() -> service.holdSlot("s3"))
+        .isInstanceOf(HoldLimitExceededException.class);
+    verify(slotRepository).releaseHold("s3", "p1");
+  }
+
+  private static Slot heldSlot(String id, String patientId) {
+    Slot slot = new Slot();
+    slot.setId(id);
+    slot.setStatus(SlotStatus.HELD);
+    slot.setHeldBy(patientId);
+    return slot;
+  }
+}
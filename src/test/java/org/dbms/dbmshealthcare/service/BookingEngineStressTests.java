@@ -0,0 +1,228 @@
+package org.dbms.dbmshealthcare.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mongodb.MongoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import org.dbms.dbmshealthcare.cache.SlotClaims;
+import org.dbms.dbmshealthcare.config.TimedLock;
+import org.dbms.dbmshealthcare.metrics.OperationInstrumentation;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Many patients booking the same few doctors' slots at once, with and without booking lanes. The
+ * write is simulated the way MongoDB arbitrates it: the first transaction to write a slot owns it
+ * for the {@link #WRITE_NANOS} it takes to commit, and any other transaction writing the same
+ * slot meanwhile aborts with a transient write conflict and is retried after a backoff outside
+ * the lane, the way TransactionExecutor retries a transaction. Logs the abort rate and latency
+ * percentiles of both runs.
+ *
+ * <p>The repository is simulated, so these numbers leave out what a booking costs in MongoDB
+ * itself: neither the round trips a losing request would make nor the commit latency are
+ * measured, only how often bookings meet inside a write.
+ */
+class BookingEngineStressTests {
+
+  private static final Logger log = LoggerFactory.getLogger(BookingEngineStressTests.class);
+
+  private static final int DOCTORS = 4;
+  private static final int SLOTS_PER_DOCTOR = 50;
+  private static final int THREADS = 32;
+  private static final int REQUESTS_PER_THREAD = 200;
+  private static final int MAX_ATTEMPTS = 5;
+  // time a booking transaction spends in MongoDB
+  private static final long WRITE_NANOS = 200_000;
+
+  private final SlotClaims slotClaims = new SlotClaims(Duration.ofMinutes(1));
+  private final BookingEngine engine = newEngine(slotClaims);
+
+  @Test
+  void lanesBookEachSlotOnceWithoutWriteConflicts() throws Exception {
+    Run unserialized = run(false);
+    Run serialized = run(true);
+
+    assertThat(unserialized.bookedBy).hasSize(DOCTORS * SLOTS_PER_DOCTOR);
+    assertThat(serialized.bookedBy).hasSize(DOCTORS * SLOTS_PER_DOCTOR);
+    assertThat(serialized.laneOverlaps).hasValue(0);
+
+    // without lanes, patients racing for the same slot abort each other; with them, bookings
+    // for a slot take turns and the losers are turned away before they write
+    assertThat(unserialized.aborts.get()).isPositive();
+    assertThat(serialized.aborts).hasValue(0);
+  }
+
+  @Test
+  void claimedSlotIsTurnedAwayWithoutWritingUntilReleased() {
+    AtomicInteger writes = new AtomicInteger();
+    slotClaims.claim("d0/1");
+
+    assertThatThrownBy(() -> engine.book("d0/1", lane -> lane.call(writes::incrementAndGet)))
+        .hasMessage("Slot not available");
+    assertThat(writes).hasValue(0);
+
+    // what SlotRepository does once the slot is written as AVAILABLE or deleted
+    slotClaims.release("d0/1");
+
+    String result = engine.book("d0/1", lane -> lane.call(() -> "booked"));
+    assertThat(result).isEqualTo("booked");
+    assertThat(slotClaims.isClaimed("d0/1")).isTrue();
+  }
+
+  @Test
+  void loserClaimingInsideTheLaneIsTurnedAwayBeforeWriting() {
+    AtomicInteger writes = new AtomicInteger();
+
+    // both pass the check before the lane; the second takes the lane first and claims the slot
+    assertThatThrownBy(() -> engine.book("d0/1", first -> {
+      engine.book("d0/1", second -> second.call(writes::incrementAndGet));
+      return first.call(writes::incrementAndGet);
+    })).hasMessage("Slot not available");
+
+    assertThat(writes).hasValue(1);
+    assertThat(slotClaims.isClaimed("d0/1")).isTrue();
+  }
+
+  @Test
+  void failedBookingGivesItsClaimUp() {
+    assertThatThrownBy(() -> engine.book("d0/1", lane -> lane.call(() -> {
+      throw new MongoException("down");
+    }))).isInstanceOf(MongoException.class);
+
+    assertThat(slotClaims.isClaimed("d0/1")).isFalse();
+  }
+
+  private Run run(boolean lanes) throws Exception {
+    Run run = new Run();
+    BookingEngine runEngine = newEngine(new SlotClaims(Duration.ofMinutes(1)));
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch startLine = new CountDownLatch(1);
+    List<Future<long[]>> futures = new ArrayList<>();
+
+    for (int thread = 0; thread < THREADS; thread++) {
+      String patientId = "p" + thread;
+      futures.add(executor.submit(() -> {
+        startLine.await();
+        long[] latencies = new long[REQUESTS_PER_THREAD];
+        for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+          String slotId = "d" + ThreadLocalRandom.current().nextInt(DOCTORS) + "/"
+              + ThreadLocalRandom.current().nextInt(SLOTS_PER_DOCTOR);
+          long start = System.nanoTime();
+          try {
+            runEngine.book(slotId, lane -> run.write(lanes ? lane : null, slotId, patientId));
+          } catch (RuntimeException e) {
+            // lost the slot to another patient
+          }
+          latencies[i] = System.nanoTime() - start;
+        }
+        return latencies;
+      }));
+    }
+
+    startLine.countDown();
+    List<Long> latencies = new ArrayList<>();
+    for (Future<long[]> future : futures) {
+      Arrays.stream(future.get(2, TimeUnit.MINUTES)).forEach(latencies::add);
+    }
+    executor.shutdown();
+    latencies.sort(Long::compare);
+
+    log.info("lanes={} requests={} booked={} attempts={} abort-rate={} p50={}ms p99={}ms",
+        lanes, latencies.size(), run.bookedBy.size(), run.attempts.get(),
+        String.format("%.3f", (double) run.aborts.get() / run.attempts.get()),
+        String.format("%.2f", latencies.get(latencies.size() / 2) / 1e6),
+        String.format("%.2f",
+            latencies.get((int) Math.ceil(latencies.size() * 0.99) - 1) / 1e6));
+    return run;
+  }
+
+  private BookingEngine newEngine(SlotClaims claims) {
+    return new BookingEngine(claims,
+        new OperationInstrumentation(new SimpleMeterRegistry()), 64, Duration.ofSeconds(5));
+  }
+
+  private static void sleepQuietly(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static class Run {
+
+    private final Map<String, String> bookedBy = new ConcurrentHashMap<>();
+    // slots a transaction has written and not yet committed
+    private final Map<String, String> writing = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> insideLane = new ConcurrentHashMap<>();
+    private final AtomicInteger laneOverlaps = new AtomicInteger();
+    private final AtomicLong attempts = new AtomicLong();
+    private final AtomicLong aborts = new AtomicLong();
+
+    // one booking attempt per iteration, under the lane when there is one, backoff outside it
+    private String write(TimedLock lane, String slotId, String patientId) {
+      for (int attempt = 1; ; attempt++) {
+        attempts.incrementAndGet();
+        try {
+          return lane == null ? transaction(slotId, patientId)
+              : lane.call(() -> inLane(slotId, () -> transaction(slotId, patientId)));
+        } catch (MongoException e) {
+          aborts.incrementAndGet();
+          if (attempt >= MAX_ATTEMPTS) {
+            throw e;
+          }
+          sleepQuietly(ThreadLocalRandom.current().nextLong(2));
+        }
+      }
+    }
+
+    private String inLane(String slotId, Supplier<String> work) {
+      AtomicInteger inside = insideLane.computeIfAbsent(slotId, id -> new AtomicInteger());
+      if (inside.incrementAndGet() > 1) {
+        laneOverlaps.incrementAndGet();
+      }
+      try {
+        return work.get();
+      } finally {
+        inside.decrementAndGet();
+      }
+    }
+
+    private String transaction(String slotId, String patientId) {
+      if (writing.putIfAbsent(slotId, patientId) != null) {
+        MongoException conflict = new MongoException(112, "WriteConflict");
+        conflict.addLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+        throw conflict;
+      }
+      try {
+        if (bookedBy.containsKey(slotId)) {
+          throw new RuntimeException("Slot not available");
+        }
+        LockSupport.parkNanos(WRITE_NANOS);
+        bookedBy.put(slotId, patientId);
+        return slotId;
+      } finally {
+        writing.remove(slotId);
+      }
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package org.dbms.dbmshealthcare.support;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import org.bson.Document;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+/**
+ * Fixtures shared by unit tests: an authenticated caller, and an evaluator for the subset of the
+ * MongoDB query language the repositories send, for tests that keep a collection in memory.
+ */
+public final class TestSupport {
+
+  private TestSupport() {
+  }
+
+  /**
+   * Authenticates the current thread with an access token for {@code role}, shaped like the ones
+   * JwtUtils issues. Tests that call this clear the security context after each test.
+   */
+  public static void authenticateAs(String role, String roleId) {
+    Jwt jwt = Jwt.withTokenValue("token")
+        .header("alg", "none")
+        .claim("roles", List.of(role))
+        .claim("profile", Map.of("id", "u1", "role_id", roleId))
+        .build();
+    SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+  }
+
+  /**
+   * Whether a document whose fields {@code field} reads matches {@code criteria}. Supports
+   * {@code $and}, {@code $or}, equality, {@code $lt}, {@code $gt}, {@code $ne} and {@code $in}.
+   */
+  public static boolean matches(Function<String, Object> field, Document criteria) {
+    for (Map.Entry<String, Object> entry : criteria.entrySet()) {
+      Object expected = entry.getValue();
+      boolean matched = switch (entry.getKey()) {
+        case "$and" -> ((List<?>) expected).stream()
+            .allMatch(clause -> matches(field, (Document) clause));
+        case "$or" -> ((List<?>) expected).stream()
+            .anyMatch(clause -> matches(field, (Document) clause));
+        default -> matchesValue(field.apply(entry.getKey()), expected);
+      };
+      if (!matched) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static boolean matchesValue(Object actual, Object expected) {
+    if (!(expected instanceof Document operators)) {
+      return Objects.equals(actual, expected);
+    }
+
+    for (Map.Entry<String, Object> operator : operators.entrySet()) {
+      Object operand = operator.getValue();
+      boolean matched = switch (operator.getKey()) {
+        // like MongoDB, $lt and $gt only compare values of the same type, so never match null
+        case "$lt" -> actual != null && operand != null
+            && ((Comparable<Object>) actual).compareTo(operand) < 0;
+        case "$gt" -> actual != null && operand != null
+            && ((Comparable<Object>) actual).compareTo(operand) > 0;
+        case "$ne" -> !Objects.equals(actual, operand);
+        case "$in" -> ((Collection<?>) operand).contains(actual);
+        default -> throw new IllegalArgumentException("Unsupported operator " + operator.getKey());
+      };
+      if (!matched) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
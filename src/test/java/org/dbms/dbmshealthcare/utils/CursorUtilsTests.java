@@ -0,0 +1,66 @@
+package org.dbms.dbmshealthcare.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.dbms.dbmshealthcare.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+class CursorUtilsTests {
+
+  @Test
+  void roundTripKeepsBsonTypes() {
+    ObjectId id = new ObjectId();
+    Date startTime = new Date(1_790_000_000_000L);
+
+    Document cursor = CursorUtils.decode(CursorUtils.encode(startTime, id));
+
+    assertThat(CursorUtils.sortValue(cursor)).isEqualTo(startTime);
+    assertThat(CursorUtils.id(cursor)).isEqualTo(id);
+  }
+
+  @Test
+  void roundTripKeepsAMissingSortKey() {
+    ObjectId id = new ObjectId();
+
+    Document cursor = CursorUtils.decode(CursorUtils.encode(null, id));
+
+    assertThat(CursorUtils.sortValue(cursor)).isNull();
+    assertThat(CursorUtils.id(cursor)).isEqualTo(id);
+  }
+
+  @Test
+  void tokenIsUrlSafe() {
+    String cursor = CursorUtils.encode("Cardiology ?&/+=", new ObjectId());
+
+    assertThat(cursor).matches("[A-Za-z0-9_-]+");
+  }
+
+  @Test
+  void rejectsTokensThatAreNotBase64Json() {
+    assertThatThrownBy(() -> CursorUtils.decode("not a cursor!"))
+        .isInstanceOf(InvalidCursorException.class);
+    assertThatThrownBy(() -> CursorUtils.decode(token("not json")))
+        .isInstanceOf(InvalidCursorException.class);
+  }
+
+  @Test
+  void rejectsTokensWithoutAnIdOrWithOperators() {
+    assertThatThrownBy(() -> CursorUtils.decode(token("{\"k\": 1}")))
+        .isInstanceOf(InvalidCursorException.class);
+    assertThatThrownBy(() -> CursorUtils.decode(token("{\"k\": {\"$ne\": null}, \"i\": 1}")))
+        .isInstanceOf(InvalidCursorException.class);
+    assertThatThrownBy(() -> CursorUtils.decode(token("{\"k\": 1, \"i\": [1, 2]}")))
+        .isInstanceOf(InvalidCursorException.class);
+  }
+
+  private static String token(String json) {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+}